@@ -0,0 +1,33 @@
+package ds.gae;
+
+/**
+ * Thrown when a request is shed by admission control before it reaches a car
+ * rental company. Instances are shared and carry no stack trace, so rejecting
+ * a request costs next to nothing.
+ */
+public class AdmissionRejectedException extends ReservationException {
+
+	private static final long serialVersionUID = 1L;
+
+	public enum Reason {
+		RENTER_RATE_EXCEEDED, COMPANY_RATE_EXCEEDED, OVERLOADED
+	}
+
+	public static final AdmissionRejectedException RENTER_RATE_EXCEEDED = new AdmissionRejectedException(
+			Reason.RENTER_RATE_EXCEEDED, "Too many requests for this renter, try again later.");
+	public static final AdmissionRejectedException COMPANY_RATE_EXCEEDED = new AdmissionRejectedException(
+			Reason.COMPANY_RATE_EXCEEDED, "Too many requests for this car rental company, try again later.");
+	public static final AdmissionRejectedException OVERLOADED = new AdmissionRejectedException(
+			Reason.OVERLOADED, "Too many requests in progress, try again later.");
+
+	private final Reason reason;
+
+	private AdmissionRejectedException(Reason reason, String string) {
+		super(string, false);
+		this.reason = reason;
+	}
+
+	public Reason getReason() {
+		return reason;
+	}
+}
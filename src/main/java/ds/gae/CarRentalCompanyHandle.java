@@ -0,0 +1,104 @@
+package ds.gae;
+
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import ds.gae.entities.Car;
+import ds.gae.entities.CarRentalCompany;
+
+/**
+ * A registered car rental company whose fleet is only loaded when the company
+ * is first accessed. Concurrent first accesses share a single load. A failed
+ * load is not remembered, so the next access tries again.
+ */
+class CarRentalCompanyHandle {
+
+	private static Logger logger = Logger.getLogger(CarRentalCompanyHandle.class.getName());
+
+	private final String name;
+	private final Callable<Set<Car>> fleetLoader;
+	private final Consumer<CarRentalCompany> initializer;
+	// the load in progress, or the last one
+	private final AtomicReference<FutureTask<CarRentalCompany>> loader;
+	// only set once a load succeeded
+	private volatile CarRentalCompany company;
+
+	/***************
+	 * CONSTRUCTOR *
+	 ***************/
+
+	CarRentalCompanyHandle(final String name, final Callable<Set<Car>> fleetLoader,
+			final Consumer<CarRentalCompany> initializer) {
+		this.name = name;
+		this.fleetLoader = fleetLoader;
+		this.initializer = initializer;
+		this.loader = new AtomicReference<FutureTask<CarRentalCompany>>(newLoader());
+	}
+
+	private FutureTask<CarRentalCompany> newLoader() {
+		return new FutureTask<CarRentalCompany>(() -> {
+			logger.log(Level.INFO, "<{0}> Loading fleet", name);
+			CarRentalCompany loaded = new CarRentalCompany(name, fleetLoader.call());
+			initializer.accept(loaded);
+			company = loaded;
+			return loaded;
+		});
+	}
+
+	/***********
+	 * LOADING *
+	 ***********/
+
+	/**
+	 * @return True if the fleet of this company was loaded successfully.
+	 */
+	boolean isLoaded() {
+		return company != null;
+	}
+
+	/**
+	 * Load the fleet of this company if no other thread is loading it already.
+	 * Returns immediately once the company is loaded.
+	 */
+	void load() {
+		if (company == null) {
+			loader.get().run();
+		}
+	}
+
+	/**
+	 * Get the car rental company, loading its fleet on the calling thread if
+	 * needed.
+	 *
+	 * @return the loaded car rental company
+	 *
+	 * @throws FleetUnavailableException The fleet of this company could not be
+	 *                                   loaded.
+	 */
+	CarRentalCompany get() {
+		CarRentalCompany loaded = company;
+		if (loaded != null) {
+			return loaded;
+		}
+		FutureTask<CarRentalCompany> task = loader.get();
+		task.run();
+		try {
+			return task.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new FleetUnavailableException("<" + name + "> Interrupted while loading fleet", e);
+		} catch (ExecutionException e) {
+			// let the next access try again, e.g. after a transient I/O error
+			if (loader.compareAndSet(task, newLoader())) {
+				logger.log(Level.SEVERE, "<" + name + "> Could not load fleet", e.getCause());
+			}
+			throw new FleetUnavailableException("<" + name + "> Could not load fleet", e.getCause());
+		}
+	}
+}
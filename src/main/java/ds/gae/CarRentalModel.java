@@ -2,30 +2,284 @@ package ds.gae;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
+import ds.gae.admission.AdmissionController;
 import ds.gae.entities.Car;
 import ds.gae.entities.CarRentalCompany;
 import ds.gae.entities.CarType;
+import ds.gae.entities.CarTypeStatistics;
 import ds.gae.entities.Quote;
 import ds.gae.entities.Reservation;
+import ds.gae.entities.ReservationAlternatives;
 import ds.gae.entities.ReservationConstraints;
+import ds.gae.entities.ReservationKey;
+import ds.gae.entities.WaitlistEntry;
+import ds.gae.events.ReservationEventHandler;
+import ds.gae.events.ReservationEventProcessor;
 
 public class CarRentalModel {
 
 	// FIXME use persistence instead
-	public Map<String,CarRentalCompany> CRCS = new HashMap<String, CarRentalCompany>();	
+	// immutable snapshot of the registered companies, replaced as a whole when a
+	// company is registered so readers never lock
+	private final AtomicReference<Map<String, CarRentalCompanyHandle>> CRCS = new AtomicReference<Map<String, CarRentalCompanyHandle>>(
+			Collections.<String, CarRentalCompanyHandle>emptyMap());
 
-	private static CarRentalModel instance;
+	private final RenterRanking renterRanking = new RenterRanking();
+	private final RenterVersions renterVersions = new RenterVersions();
+
+	// sheds quote and confirm requests before they reach a company
+	private final AdmissionController admission = new AdmissionController();
+
+	// results of confirmations per idempotency key, so retries do not book twice
+	private final IdempotencyCache<List<Reservation>> confirmations = new IdempotencyCache<List<Reservation>>(
+			Integer.getInteger("carrental.idempotency.maxEntries", 10_000),
+			Integer.getInteger("carrental.idempotency.ttlSeconds", 600), TimeUnit.SECONDS);
+
+	// subscribers to the events of all companies, and the companies they read;
+	// both are only changed while holding the lock on processors
+	private final List<ReservationEventProcessor> processors = new CopyOnWriteArrayList<ReservationEventProcessor>();
+	private final List<CarRentalCompany> initializedCompanies = new CopyOnWriteArrayList<CarRentalCompany>();
+
+	// loads the fleets of several companies in parallel when they are first
+	// accessed together
+	private final ExecutorService loaderPool = Executors.newFixedThreadPool(
+			Runtime.getRuntime().availableProcessors(),
+			runnable -> {
+				Thread thread = new Thread(runnable, "car-rental-loader");
+				thread.setDaemon(true);
+				return thread;
+			});
+
+	// The class loader initializes the holder exactly once, on the first call to
+	// get(), and safely publishes the instance to all threads.
+	private static class InstanceHolder {
+		private static final CarRentalModel INSTANCE = new CarRentalModel();
+	}
 
 	public static CarRentalModel get() {
-		if (instance == null) {
-			instance = new CarRentalModel();
+		return InstanceHolder.INSTANCE;
+	}
+
+	/**
+	 * Register a car rental company. Its fleet is only loaded when the company is
+	 * first accessed.
+	 *
+	 * @param companyName name of the car rental company
+	 * @param fleetLoader loads the cars of the car rental company
+	 * @return True if the company was registered. False if a company with the
+	 *         given name was already registered.
+	 */
+	public boolean registerCompany(String companyName, Callable<Set<Car>> fleetLoader) {
+		CarRentalCompanyHandle handle = new CarRentalCompanyHandle(companyName, fleetLoader, this::initializeCompany);
+		while (true) {
+			Map<String, CarRentalCompanyHandle> current = CRCS.get();
+			if (current.containsKey(companyName)) {
+				return false;
+			}
+			Map<String, CarRentalCompanyHandle> changed = new HashMap<String, CarRentalCompanyHandle>(current);
+			changed.put(companyName, handle);
+			if (CRCS.compareAndSet(current, Collections.unmodifiableMap(changed))) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Register a car rental company with the given cars while serving. The
+	 * company becomes visible to readers at once, with its whole fleet.
+	 *
+	 * @param companyName name of the car rental company
+	 * @param cars        the cars of the car rental company
+	 * @return True if the company was registered. False if a company with the
+	 *         given name was already registered.
+	 */
+	public boolean registerCompany(String companyName, Set<Car> cars) {
+		if (!registerCompany(companyName, () -> cars)) {
+			return false;
+		}
+		// the fleet is already in memory, so hook the company up right away
+		getCompany(companyName);
+		return true;
+	}
+
+	/**
+	 * Add a car type, without cars, to the given car rental company.
+	 *
+	 * @param companyName name of the car rental company
+	 * @param type        the new car type
+	 * 
+	 * @throws IllegalStateException The company already has a car type with that
+	 *                               name.
+	 */
+	public void addCarType(String companyName, CarType type) {
+		getCompany(companyName).addCarType(type);
+	}
+
+	/**
+	 * Add new cars of an existing car type to the given car rental company.
+	 *
+	 * @param companyName name of the car rental company
+	 * @param carTypeName name of the car type of the new cars
+	 * @param count       number of cars to add
+	 * @return the ids of the new cars
+	 */
+	public List<Integer> addCars(String companyName, String carTypeName, int count) {
+		return getCompany(companyName).addCars(carTypeName, count);
+	}
+
+	/**
+	 * Take a car out of the fleet of the given car rental company.
+	 *
+	 * @param companyName name of the car rental company
+	 * @param carId       id of the car
+	 * 
+	 * @throws IllegalStateException The car has reservations that did not end
+	 *                               yet.
+	 */
+	public void retireCar(String companyName, int carId) {
+		getCompany(companyName).retireCar(carId);
+	}
+
+	/**
+	 * Remove a car type, which has no cars left, from the given car rental
+	 * company.
+	 *
+	 * @param companyName name of the car rental company
+	 * @param carTypeName name of the car type
+	 * 
+	 * @throws IllegalStateException The car type still has cars.
+	 */
+	public void retireCarType(String companyName, String carTypeName) {
+		getCompany(companyName).retireCarType(carTypeName);
+	}
+
+	/**
+	 * Hook up a car rental company whose fleet was just loaded, before it is
+	 * visible to other threads.
+	 */
+	private void initializeCompany(CarRentalCompany crc) {
+		crc.addReservationListener(renterRanking);
+		crc.addReservationListener(renterVersions);
+		synchronized (processors) {
+			initializedCompanies.add(crc);
+			for (ReservationEventProcessor processor : processors) {
+				// from the start, so subscribers also see the fleet being loaded
+				processor.addRing(crc.getEventRing(), 0);
+			}
+		}
+	}
+
+	/**
+	 * Subscribe to the changes of all car rental companies, including companies
+	 * that are loaded later. The handler receives the events in batches on its
+	 * own thread, starting with the changes made after subscribing. A handler
+	 * that falls behind by more than the size of a company's event ring skips
+	 * the events it missed.
+	 *
+	 * @param handler the handler to feed the events to
+	 * @return the processor running the handler, e.g. to stop it
+	 */
+	public ReservationEventProcessor subscribe(ReservationEventHandler handler) {
+		ReservationEventProcessor processor = new ReservationEventProcessor(handler);
+		synchronized (processors) {
+			for (CarRentalCompany crc : initializedCompanies) {
+				processor.addRing(crc.getEventRing(), crc.getEventRing().getCursor() + 1);
+			}
+			processors.add(processor);
 		}
-		return instance;
+		Thread thread = new Thread(processor, "car-rental-events");
+		thread.setDaemon(true);
+		thread.start();
+		return processor;
+	}
+
+	/**
+	 * Stop feeding events to the handler of the given processor.
+	 *
+	 * @param processor a processor returned by {@link #subscribe}
+	 */
+	public void unsubscribe(ReservationEventProcessor processor) {
+		synchronized (processors) {
+			processors.remove(processor);
+		}
+		processor.stop();
+	}
+
+	/**
+	 * Get the given car rental company, loading its fleet if needed.
+	 *
+	 * @param companyName name of the car rental company
+	 * @return the car rental company
+	 * 
+	 * @throws IllegalArgumentException No car rental company with the given name
+	 *                                  is registered.
+	 */
+	private CarRentalCompany getCompany(String companyName) {
+		CarRentalCompanyHandle handle = CRCS.get().get(companyName);
+		if (handle == null) {
+			throw new IllegalArgumentException("No car rental company with name " + companyName);
+		}
+		return handle.get();
+	}
+
+	/**
+	 * Load the fleets of the given car rental companies, in parallel, before a
+	 * caller reads them one after another. The calling thread loads one of them
+	 * itself. Companies whose fleet cannot be loaded are skipped here; accessing
+	 * them tries again and reports the failure.
+	 *
+	 * @param companyNames names of the car rental companies about to be read
+	 */
+	public void loadCompanies(Collection<String> companyNames) {
+		Map<String, CarRentalCompanyHandle> current = CRCS.get();
+		List<CarRentalCompanyHandle> handles = new ArrayList<CarRentalCompanyHandle>();
+		for (String companyName : companyNames) {
+			CarRentalCompanyHandle handle = current.get(companyName);
+			if (handle != null && !handle.isLoaded()) {
+				handles.add(handle);
+			}
+		}
+		for (int i = 1; i < handles.size(); i++) {
+			loaderPool.execute(handles.get(i)::load);
+		}
+		for (CarRentalCompanyHandle handle : handles) {
+			try {
+				handle.get();
+			} catch (FleetUnavailableException e) {
+				// logged by the handle, the other companies are still loaded
+			}
+		}
+	}
+
+	/**
+	 * Get the car rental companies whose fleet is already loaded. Companies that
+	 * are not loaded yet have no reservations.
+	 *
+	 * @return the list of loaded car rental companies, ordered by name
+	 */
+	private List<CarRentalCompany> getLoadedCompanies() {
+		List<CarRentalCompany> out = new ArrayList<CarRentalCompany>();
+		for (CarRentalCompanyHandle handle : CRCS.get().values()) {
+			if (handle.isLoaded()) {
+				out.add(handle.get());
+			}
+		}
+		out.sort(Comparator.comparing(CarRentalCompany::getName));
+		return out;
 	}
 
 	/**
@@ -47,7 +301,7 @@ public class CarRentalModel {
 	 */
 	public Collection<String> getAllRentalCompanyNames() {
 		// FIXME use persistence instead
-    	return CRCS.keySet();
+    	return CRCS.get().keySet();
 	}
 
 	/**
@@ -60,26 +314,125 @@ public class CarRentalModel {
 	 * @return The newly created quote.
 	 * 
 	 * @throws ReservationException No car available that fits the given
-	 *                              constraints.
+	 *                              constraints, or the request was rejected by
+	 *                              admission control.
 	 */
 	public Quote createQuote(String companyName, String renterName, ReservationConstraints constraints)
 			throws ReservationException {
-		// FIXME: use persistence instead
-    	CarRentalCompany crc = CRCS.get(companyName);
-		return crc.createQuote(constraints, renterName);
+		admission.admit(renterName, companyName);
+		try {
+			// FIXME: use persistence instead
+			CarRentalCompany crc = getCompany(companyName);
+			return crc.createQuote(constraints, renterName);
+		} finally {
+			admission.release();
+		}
+	}
+
+	/**
+	 * Create a quote like
+	 * {@link #createQuote(String, String, ReservationConstraints)}, but report
+	 * failures, such as a sold out car type or a request shed by admission
+	 * control, as the reason of the result instead of throwing.
+	 *
+	 * @param companyName name of the car renter company
+	 * @param renterName  name of the car renter
+	 * @param constraints reservation constraints for the quote
+	 * @return the quote, or the reason no quote was created
+	 */
+	public ReservationResult<Quote> tryCreateQuote(String companyName, String renterName,
+			ReservationConstraints constraints) {
+		CarRentalCompanyHandle handle = CRCS.get().get(companyName);
+		if (handle == null) {
+			return ReservationResult.failure(ReservationResult.Reason.UNKNOWN_COMPANY);
+		}
+		AdmissionRejectedException rejection = admission.tryAdmit(renterName, companyName);
+		if (rejection != null) {
+			return ReservationResult.rejected(rejection);
+		}
+		try {
+			return handle.get().tryCreateQuote(constraints, renterName);
+		} finally {
+			admission.release();
+		}
+	}
+
+	/**
+	 * Find alternatives for the given reservation constraints, e.g. after
+	 * creating a quote for them failed: the nearby periods of the same length in
+	 * which a car of the requested type is free, and the other car types with a
+	 * car free in the requested period.
+	 *
+	 * @param companyName name of the car rental company
+	 * @param constraints the requested reservation constraints
+	 * @param k           the maximum number of alternative periods
+	 * @return the alternative periods and car types
+	 */
+	public ReservationAlternatives getAlternatives(String companyName, ReservationConstraints constraints, int k) {
+		return getCompany(companyName).getAlternatives(constraints, k);
 	}
 
 	/**
 	 * Confirm the given quote.
 	 *
 	 * @param quote Quote to confirm
+	 * @return The reservation resulting from confirming the quote.
 	 * 
-	 * @throws ReservationException Confirmation of given quote failed.
+	 * @throws ReservationException Confirmation of given quote failed, or the
+	 *                              request was rejected by admission control.
 	 */
-	public void confirmQuote(Quote quote) throws ReservationException {
-		// FIXME: use persistence instead
-		CarRentalCompany crc = CRCS.get(quote.getRentalCompany());
-		crc.confirmQuote(quote);
+	public Reservation confirmQuote(Quote quote) throws ReservationException {
+		admission.admit(quote.getRenter(), quote.getRentalCompany());
+		try {
+			// FIXME: use persistence instead
+			CarRentalCompany crc = getCompany(quote.getRentalCompany());
+			return crc.confirmQuote(quote);
+		} finally {
+			admission.release();
+		}
+	}
+
+	/**
+	 * Confirm the given quote like {@link #confirmQuote(Quote)}, but report
+	 * failures, such as a car type that sold out since the quote was made or a
+	 * request shed by admission control, as the reason of the result instead of
+	 * throwing.
+	 *
+	 * @param quote Quote to confirm
+	 * @return the reservation, or the reason the quote was not confirmed
+	 */
+	public ReservationResult<Reservation> tryConfirmQuote(Quote quote) {
+		CarRentalCompanyHandle handle = CRCS.get().get(quote.getRentalCompany());
+		if (handle == null) {
+			return ReservationResult.failure(ReservationResult.Reason.UNKNOWN_COMPANY);
+		}
+		AdmissionRejectedException rejection = admission.tryAdmit(quote.getRenter(), quote.getRentalCompany());
+		if (rejection != null) {
+			return ReservationResult.rejected(rejection);
+		}
+		try {
+			return handle.get().tryConfirmQuote(quote);
+		} finally {
+			admission.release();
+		}
+	}
+
+	/**
+	 * Confirm the given quote at most once per idempotency key. Retrying with the
+	 * same key returns the reservation of the first successful confirmation.
+	 *
+	 * @param quote          Quote to confirm
+	 * @param idempotencyKey key chosen by the client, unique per confirmation
+	 * @return The reservation resulting from confirming the quote.
+	 * 
+	 * @throws ReservationException     Confirmation of given quote failed, or the
+	 *                                  request was rejected by admission control.
+	 * @throws IllegalArgumentException The key was used before for another quote.
+	 */
+	public Reservation confirmQuote(Quote quote, String idempotencyKey) throws ReservationException {
+		List<Quote> quotes = new ArrayList<Quote>(1);
+		quotes.add(quote);
+		return confirmQuotes(quotes, idempotencyKey).get(0);
 	}
 
 	/**
@@ -88,12 +441,125 @@ public class CarRentalModel {
 	 * @param quotes the quotes to confirm
 	 * @return The list of reservations, resulting from confirming all given quotes.
 	 * 
-	 * @throws ReservationException One of the quotes cannot be confirmed. Therefore
-	 *                              none of the given quotes is confirmed.
+	 * @throws ReservationException One of the quotes cannot be confirmed, or the
+	 *                              batch was rejected by admission control.
+	 *                              Therefore none of the given quotes is
+	 *                              confirmed.
 	 */
 	public List<Reservation> confirmQuotes(List<Quote> quotes) throws ReservationException {
-		// TODO: add implementation when time left, required for GAE2
-    	return null;
+		List<Reservation> out = new ArrayList<Reservation>(quotes.size());
+		if (quotes.isEmpty()) {
+			return out;
+		}
+		// the whole batch is one request, so it is admitted once
+		admission.admit(quotes.get(0).getRenter(), quotes.get(0).getRentalCompany());
+		try {
+			for (Quote quote : quotes) {
+				out.add(getCompany(quote.getRentalCompany()).confirmQuote(quote));
+			}
+		} catch (ReservationException | RuntimeException e) {
+			// all or nothing: undo the quotes that were already confirmed
+			for (Reservation reservation : out) {
+				cancelReservation(reservation);
+			}
+			throw e;
+		} finally {
+			admission.release();
+		}
+		return out;
+	}
+
+	/**
+	 * Confirm the given list of quotes at most once per idempotency key. Retrying
+	 * with the same key returns the reservations of the first successful
+	 * confirmation.
+	 * 
+	 * @param quotes         the quotes to confirm
+	 * @param idempotencyKey key chosen by the client, unique per confirmation
+	 * @return The list of reservations, resulting from confirming all given quotes.
+	 * 
+	 * @throws ReservationException     One of the quotes cannot be confirmed.
+	 *                                  Therefore none of the given quotes is
+	 *                                  confirmed.
+	 * @throws IllegalArgumentException The key was used before for other quotes.
+	 */
+	public List<Reservation> confirmQuotes(List<Quote> quotes, String idempotencyKey) throws ReservationException {
+		if (quotes.isEmpty()) {
+			return new ArrayList<Reservation>();
+		}
+		// keys are chosen by clients, so keep the keys of different renters apart
+		String key = quotes.get(0).getRenter() + '\u0000' + idempotencyKey;
+		// every retry gets the same list, so it must not be changed
+		List<Reservation> reservations = confirmations.get(key,
+				() -> Collections.unmodifiableList(confirmQuotes(quotes)));
+		if (!isConfirmationOf(reservations, quotes)) {
+			throw new IllegalArgumentException("Idempotency key " + idempotencyKey + " was used for other quotes");
+		}
+		return reservations;
+	}
+
+	private static boolean isConfirmationOf(List<Reservation> reservations, List<Quote> quotes) {
+		if (reservations.size() != quotes.size()) {
+			return false;
+		}
+		for (int i = 0; i < quotes.size(); i++) {
+			Reservation r = reservations.get(i);
+			Quote q = quotes.get(i);
+			if (!r.getRenter().equals(q.getRenter())
+					|| !r.getRentalCompany().equals(q.getRentalCompany())
+					|| !r.getCarType().equals(q.getCarType())
+					|| !r.getStartDate().equals(q.getStartDate())
+					|| !r.getEndDate().equals(q.getEndDate())) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Cancel the given reservation.
+	 *
+	 * @param reservation the reservation to cancel
+	 */
+	public void cancelReservation(Reservation reservation) {
+		getCompany(reservation.getRentalCompany()).cancelReservation(reservation);
+	}
+
+	/**
+	 * Put the given car renter on the waitlist of the given car rental company,
+	 * e.g. after a quote failed because the car type is sold out. The renter gets
+	 * a reservation automatically as soon as a cancellation frees a car of the
+	 * requested type for the whole requested period.
+	 *
+	 * @param companyName name of the car rental company
+	 * @param renterName  name of the car renter
+	 * @param constraints reservation constraints to wait for
+	 * @return the waitlist entry, whose status tells whether a reservation was
+	 *         made
+	 * 
+	 * @throws AdmissionRejectedException The request was rejected by admission
+	 *                                    control. Joining may book a free car
+	 *                                    right away, so it is admitted like a
+	 *                                    confirmation.
+	 */
+	public WaitlistEntry joinWaitlist(String companyName, String renterName, ReservationConstraints constraints)
+			throws AdmissionRejectedException {
+		admission.admit(renterName, companyName);
+		try {
+			return getCompany(companyName).joinWaitlist(constraints, renterName);
+		} finally {
+			admission.release();
+		}
+	}
+
+	/**
+	 * Take the given entry off the waitlist.
+	 *
+	 * @param entry the waitlist entry
+	 * @return True if the entry was still waiting.
+	 */
+	public boolean leaveWaitlist(WaitlistEntry entry) {
+		return getCompany(entry.getRentalCompany()).leaveWaitlist(entry);
 	}
 
 	/**
@@ -103,18 +569,57 @@ public class CarRentalModel {
 	 * @return the list of reservations of the given car renter
 	 */
 	public List<Reservation> getReservations(String renter) {
-		// FIXME: use persistence instead
-		List<Reservation> out = new ArrayList<Reservation>();	
-    	for (CarRentalCompany crc : CRCS.values()) {
-    		for (Car c : crc.getCars()) {
-    			for (Reservation r : c.getReservations()) {
-    				if (r.getRenter().equals(renter)) {
-    					out.add(r);
-    				}
-    			}
-    		}
-    	}
-    	return out;
+		return getReservations(renter, null, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Get a page of the reservations made by the given car renter, archived or
+	 * not, ordered by start date, car rental company and car. The key of the last
+	 * reservation of a page is the cursor for the next page, and stays valid
+	 * while reservations are archived.
+	 *
+	 * @param renter name of the car renter
+	 * @param after  key of the reservation to start after, or null to start at
+	 *               the first reservation
+	 * @param limit  maximum number of reservations to return
+	 * @return the page of reservations of the given car renter
+	 */
+	public List<Reservation> getReservations(String renter, ReservationKey after, int limit) {
+		// companies that are not loaded yet have no reservations to look at
+		List<Reservation> out = new ArrayList<Reservation>();
+		for (CarRentalCompany crc : getLoadedCompanies()) {
+			out.addAll(crc.getReservations(renter, after, limit));
+		}
+		out.sort(ReservationKey.ORDER);
+		return out.size() > limit ? new ArrayList<Reservation>(out.subList(0, limit)) : out;
+	}
+
+	/**
+	 * Move all reservations that ended before the given date to the archives of
+	 * the car rental companies.
+	 *
+	 * @param cutoff reservations ending before this date are archived
+	 * @return the number of archived reservations
+	 */
+	public int archiveReservationsEndedBefore(Date cutoff) {
+		int archived = 0;
+		for (CarRentalCompany crc : getLoadedCompanies()) {
+			archived += crc.archiveReservationsEndedBefore(cutoff);
+		}
+		return archived;
+	}
+
+	/**
+	 * Drop the expired entries from the waitlists of all car rental companies.
+	 *
+	 * @return the number of dropped entries
+	 */
+	public int removeExpiredWaitlistEntries() {
+		int removed = 0;
+		for (CarRentalCompany crc : getLoadedCompanies()) {
+			removed += crc.removeExpiredWaitlistEntries();
+		}
+		return removed;
 	}
 
 	/**
@@ -125,7 +630,7 @@ public class CarRentalModel {
 	 */
 	public Collection<CarType> getCarTypesOfCarRentalCompany(String companyName) {
 		// FIXME: use persistence instead
-    	CarRentalCompany crc = CRCS.get(companyName);
+    	CarRentalCompany crc = getCompany(companyName);
     	Collection<CarType> out = new ArrayList<CarType>(crc.getAllCarTypes());
         return out;
 	}
@@ -166,11 +671,9 @@ public class CarRentalModel {
 	private List<Car> getCarsByCarType(String companyName, CarType carType) {
 		// FIXME: use persistence instead
 		List<Car> out = new ArrayList<Car>(); 
-		for(CarRentalCompany crc : CRCS.values()) {
-			for (Car c : crc.getCars()) {
-				if (c.getType() == carType) { 
-					out.add(c);
-				}
+		for (Car c : getCompany(companyName).getCars()) {
+			if (c.getType().equals(carType)) { 
+				out.add(c);
 			}
 		}
 		return out;
@@ -185,6 +688,89 @@ public class CarRentalModel {
 	 *         than 0. False otherwise.
 	 */
 	public boolean hasReservations(String renter) {
-		return this.getReservations(renter).size() > 0;
+		return this.getReservations(renter, null, 1).size() > 0;
+	}
+
+	/**
+	 * Get the usage statistics of all car types in the given car rental company.
+	 *
+	 * @param companyName name of the car rental company
+	 * @return the usage statistics per car type
+	 */
+	public Collection<CarTypeStatistics> getCarTypeStatistics(String companyName) {
+		return new ArrayList<CarTypeStatistics>(getCompany(companyName).getAllCarTypeStatistics());
+	}
+
+	/**
+	 * Get the car type with the most reservations in the given car rental
+	 * company.
+	 *
+	 * @param companyName name of the car rental company
+	 * @return the most popular car type, or null if nothing was reserved yet
+	 */
+	public CarType getMostPopularCarType(String companyName) {
+		return getCompany(companyName).getMostPopularCarType();
+	}
+
+	/**
+	 * Get the renters with the most reservations over all car rental companies.
+	 *
+	 * @param k the maximum number of renters
+	 * @return the names of the renters and their number of reservations, highest
+	 *         number first
+	 */
+	public List<Map.Entry<String, Integer>> getTopRenters(int k) {
+		return renterRanking.getTopRenters(k);
+	}
+
+	/**
+	 * Get the admission control in front of quoting and confirming, e.g. to
+	 * report how much load was shed.
+	 *
+	 * @return the admission controller of this model
+	 */
+	public AdmissionController getAdmissionController() {
+		return admission;
+	}
+
+	/**
+	 * Get the version of the given car rental company. The version increases
+	 * every time a reservation of the company is confirmed or cancelled and
+	 * every time its fleet changes. A company
+	 * that is not loaded yet is not loaded for this.
+	 *
+	 * @param companyName name of the car rental company
+	 * @return the version of the car rental company
+	 */
+	public long getCompanyVersion(String companyName) {
+		CarRentalCompanyHandle handle = CRCS.get().get(companyName);
+		return handle != null && handle.isLoaded() ? handle.get().getVersion() : 0;
+	}
+
+	/**
+	 * Get the version of all car rental companies together. It increases with
+	 * every change to any of the companies.
+	 *
+	 * @return the sum of the versions of all car rental companies
+	 */
+	public long getAllCompaniesVersion() {
+		long version = 0;
+		for (CarRentalCompanyHandle handle : CRCS.get().values()) {
+			if (handle.isLoaded()) {
+				version += handle.get().getVersion();
+			}
+		}
+		return version;
+	}
+
+	/**
+	 * Get the version of the reservations of the given car renter. The version
+	 * increases every time a reservation of the renter is confirmed or cancelled.
+	 *
+	 * @param renter name of the car renter
+	 * @return the version of the reservations of the car renter
+	 */
+	public long getRenterVersion(String renter) {
+		return renterVersions.get(renter);
 	}
 }
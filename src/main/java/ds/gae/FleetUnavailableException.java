@@ -0,0 +1,14 @@
+package ds.gae;
+
+/**
+ * Thrown when a car rental company is registered, but its fleet could not be
+ * loaded. The next access to the company tries to load it again.
+ */
+public class FleetUnavailableException extends IllegalStateException {
+
+	private static final long serialVersionUID = 1L;
+
+	public FleetUnavailableException(String string, Throwable cause) {
+		super(string, cause);
+	}
+}
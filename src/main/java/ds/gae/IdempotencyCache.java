@@ -0,0 +1,134 @@
+package ds.gae;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers the result of an action per idempotency key, so a retried request
+ * gets the original result instead of running the action again. A retry that
+ * arrives while the original request is still running waits for its result.
+ * Failed actions are not remembered. Entries expire after a fixed time and the
+ * oldest entries are dropped once the cache is full, but never while their
+ * action is still running, as a retry would then run it a second time.
+ *
+ * @param <V> type of the results
+ */
+class IdempotencyCache<V> {
+
+	@FunctionalInterface
+	interface Action<V> {
+		V run() throws ReservationException;
+	}
+
+	private final int maxEntries;
+	private final long ttlNanos;
+	private final ConcurrentMap<String, Entry<V>> entries = new ConcurrentHashMap<String, Entry<V>>();
+	// entries in the order they were added, which is also the order they expire in
+	private final Queue<Entry<V>> insertionOrder = new ConcurrentLinkedQueue<Entry<V>>();
+
+	/***************
+	 * CONSTRUCTOR *
+	 ***************/
+
+	IdempotencyCache(int maxEntries, long ttl, TimeUnit unit) {
+		this.maxEntries = maxEntries;
+		this.ttlNanos = unit.toNanos(ttl);
+	}
+
+	/**
+	 * Get the result of the action for the given key, running the action only if
+	 * there is no result for the key yet.
+	 *
+	 * @param key    the idempotency key
+	 * @param action the action to run
+	 * @return the result of the first successful run of the action for the key
+	 *
+	 * @throws ReservationException The action failed.
+	 */
+	V get(String key, Action<V> action) throws ReservationException {
+		long now = System.nanoTime();
+		Entry<V> existing = entries.get(key);
+		if (existing != null && !existing.isExpired(now)) {
+			return existing.await();
+		}
+
+		evict(now);
+		Entry<V> entry = new Entry<V>(key, now + ttlNanos);
+		while ((existing = entries.putIfAbsent(key, entry)) != null) {
+			if (!existing.isExpired(now)) {
+				return existing.await();
+			}
+			entries.remove(key, existing);
+		}
+		insertionOrder.add(entry);
+
+		try {
+			V result = action.run();
+			entry.result.complete(result);
+			return result;
+		} catch (ReservationException | RuntimeException | Error e) {
+			// let a later retry run the action again, and do not leave the entry
+			// behind in the queue, which is only trimmed from its head
+			entries.remove(key, entry);
+			insertionOrder.remove(entry);
+			entry.result.completeExceptionally(e);
+			throw e;
+		}
+	}
+
+	int size() {
+		return entries.size();
+	}
+
+	// stops at the oldest entry that is still running, so the cache can grow past
+	// its maximum by the number of actions in progress
+	private void evict(long now) {
+		Entry<V> oldest;
+		while ((oldest = insertionOrder.peek()) != null
+				&& (entries.get(oldest.key) != oldest || oldest.isExpired(now)
+						|| entries.size() >= maxEntries && oldest.result.isDone())) {
+			if (insertionOrder.remove(oldest)) {
+				entries.remove(oldest.key, oldest);
+			}
+		}
+	}
+
+	private static class Entry<V> {
+
+		private final String key;
+		private final long expiresAt;
+		private final CompletableFuture<V> result = new CompletableFuture<V>();
+
+		Entry(String key, long expiresAt) {
+			this.key = key;
+			this.expiresAt = expiresAt;
+		}
+
+		// an entry whose action is still running never expires
+		boolean isExpired(long now) {
+			return now - expiresAt > 0 && result.isDone();
+		}
+
+		V await() throws ReservationException {
+			try {
+				return result.get();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for the original request", e);
+			} catch (ExecutionException e) {
+				if (e.getCause() instanceof ReservationException) {
+					throw (ReservationException) e.getCause();
+				}
+				if (e.getCause() instanceof Error) {
+					throw (Error) e.getCause();
+				}
+				throw (RuntimeException) e.getCause();
+			}
+		}
+	}
+}
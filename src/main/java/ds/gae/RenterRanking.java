@@ -0,0 +1,73 @@
+package ds.gae;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import ds.gae.entities.Reservation;
+import ds.gae.entities.ReservationListener;
+
+/**
+ * Number of reservations per renter, with the renters grouped by their count
+ * so the best renters can be listed without sorting all of them.
+ */
+class RenterRanking implements ReservationListener {
+
+	private final Map<String, Integer> counts = new HashMap<String, Integer>();
+	// renters by reservation count, highest count first
+	private final TreeMap<Integer, Set<String>> rentersByCount = new TreeMap<Integer, Set<String>>(
+			Collections.reverseOrder());
+
+	@Override
+	public synchronized void reservationConfirmed(Reservation reservation) {
+		update(reservation.getRenter(), 1);
+	}
+
+	@Override
+	public synchronized void reservationCancelled(Reservation reservation) {
+		update(reservation.getRenter(), -1);
+	}
+
+	private void update(String renter, int delta) {
+		int oldCount = counts.getOrDefault(renter, 0);
+		int newCount = oldCount + delta;
+		if (oldCount > 0) {
+			Set<String> renters = rentersByCount.get(oldCount);
+			renters.remove(renter);
+			if (renters.isEmpty()) {
+				rentersByCount.remove(oldCount);
+			}
+		}
+		if (newCount > 0) {
+			counts.put(renter, newCount);
+			rentersByCount.computeIfAbsent(newCount, count -> new LinkedHashSet<String>()).add(renter);
+		} else {
+			counts.remove(renter);
+		}
+	}
+
+	/**
+	 * Get the renters with the most reservations.
+	 *
+	 * @param k the maximum number of renters
+	 * @return the renters and their number of reservations, highest first
+	 */
+	synchronized List<Map.Entry<String, Integer>> getTopRenters(int k) {
+		List<Map.Entry<String, Integer>> out = new ArrayList<Map.Entry<String, Integer>>(Math.min(k, counts.size()));
+		for (Map.Entry<Integer, Set<String>> entry : rentersByCount.entrySet()) {
+			for (String renter : entry.getValue()) {
+				if (out.size() >= k) {
+					return out;
+				}
+				out.add(new SimpleImmutableEntry<String, Integer>(renter, entry.getKey()));
+			}
+		}
+		return out;
+	}
+}
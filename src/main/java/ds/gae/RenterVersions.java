@@ -0,0 +1,36 @@
+package ds.gae;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import ds.gae.entities.Reservation;
+import ds.gae.entities.ReservationListener;
+
+/**
+ * Version of the reservations of every renter, increased each time one of
+ * their reservations is confirmed or cancelled.
+ */
+class RenterVersions implements ReservationListener {
+
+	private final ConcurrentMap<String, AtomicLong> versions = new ConcurrentHashMap<String, AtomicLong>();
+
+	@Override
+	public void reservationConfirmed(Reservation reservation) {
+		increment(reservation.getRenter());
+	}
+
+	@Override
+	public void reservationCancelled(Reservation reservation) {
+		increment(reservation.getRenter());
+	}
+
+	private void increment(String renter) {
+		versions.computeIfAbsent(renter, r -> new AtomicLong()).incrementAndGet();
+	}
+
+	long get(String renter) {
+		AtomicLong version = versions.get(renter);
+		return version == null ? 0 : version.get();
+	}
+}
@@ -0,0 +1,52 @@
+package ds.gae;
+
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Background task that periodically moves reservations that ended more than a
+ * retention period ago from the cars to the archives of their car rental
+ * companies, and drops expired waitlist entries.
+ */
+public class ReservationArchiver implements Runnable {
+
+	private static Logger logger = Logger.getLogger(ReservationArchiver.class.getName());
+
+	private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+	// number of days a reservation stays in the hot tier after it ended
+	private static final int RETENTION_DAYS = Integer.getInteger("carrental.archive.retentionDays", 30);
+	// number of minutes between two archive runs
+	private static final int INTERVAL_MINUTES = Integer.getInteger("carrental.archive.intervalMinutes", 60);
+
+	private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "car-rental-archiver");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Schedule the archiver to run periodically on a background thread.
+	 */
+	public static void start() {
+		scheduler.scheduleWithFixedDelay(new ReservationArchiver(), INTERVAL_MINUTES, INTERVAL_MINUTES, TimeUnit.MINUTES);
+	}
+
+	@Override
+	public void run() {
+		Date cutoff = new Date(System.currentTimeMillis() - RETENTION_DAYS * DAY);
+		try {
+			int archived = CarRentalModel.get().archiveReservationsEndedBefore(cutoff);
+			logger.log(Level.INFO, "Archived {0} reservations that ended before {1}", new Object[] { archived, cutoff });
+			int expired = CarRentalModel.get().removeExpiredWaitlistEntries();
+			logger.log(Level.INFO, "Dropped {0} expired waitlist entries", expired);
+		} catch (RuntimeException e) {
+			// an uncaught exception would cancel all further runs
+			logger.log(Level.SEVERE, "Archiving reservations failed", e);
+		}
+	}
+}
@@ -7,4 +7,17 @@ public class ReservationException extends Exception {
 	public ReservationException(String string) {
 		super(string);
 	}
+
+	protected ReservationException(String string, boolean writableStackTrace) {
+		super(string, null, false, writableStackTrace);
+	}
+
+	/**
+	 * Create an exception without a stack trace, for expected outcomes such as a
+	 * sold out car type, where filling in the stack trace costs more than the
+	 * rest of the request.
+	 */
+	public static ReservationException stackless(String string) {
+		return new ReservationException(string, false);
+	}
 }
@@ -0,0 +1,107 @@
+package ds.gae;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Outcome of quoting or confirming without exceptions. Running out of cars is
+ * a normal outcome at peak hours, so it is reported as a reason code instead
+ * of an exception that captures a stack trace and formats a message. Failed
+ * results are shared, so a failure allocates nothing.
+ *
+ * @param <T> type of the value of a successful result
+ */
+public final class ReservationResult<T> {
+
+	public enum Reason {
+		OK,
+		// no car of the requested type is free in the requested period
+		SOLD_OUT,
+		UNKNOWN_CAR_TYPE,
+		UNKNOWN_COMPANY,
+		// shed by admission control, see AdmissionRejectedException
+		RENTER_RATE_EXCEEDED,
+		COMPANY_RATE_EXCEEDED,
+		OVERLOADED
+	}
+
+	private static final Map<Reason, ReservationResult<?>> FAILURES = new EnumMap<Reason, ReservationResult<?>>(
+			Reason.class);
+
+	static {
+		for (Reason reason : Reason.values()) {
+			if (reason != Reason.OK) {
+				FAILURES.put(reason, new ReservationResult<Object>(reason, null));
+			}
+		}
+	}
+
+	private final Reason reason;
+	private final T value;
+
+	/***************
+	 * CONSTRUCTOR *
+	 ***************/
+
+	private ReservationResult(Reason reason, T value) {
+		this.reason = reason;
+		this.value = value;
+	}
+
+	public static <T> ReservationResult<T> ok(T value) {
+		return new ReservationResult<T>(Reason.OK, value);
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <T> ReservationResult<T> failure(Reason reason) {
+		if (reason == Reason.OK) {
+			throw new IllegalArgumentException("Not a failure: " + reason);
+		}
+		// failures carry no value, so one instance serves every type
+		return (ReservationResult<T>) FAILURES.get(reason);
+	}
+
+	public static <T> ReservationResult<T> rejected(AdmissionRejectedException rejection) {
+		switch (rejection.getReason()) {
+		case RENTER_RATE_EXCEEDED:
+			return failure(Reason.RENTER_RATE_EXCEEDED);
+		case COMPANY_RATE_EXCEEDED:
+			return failure(Reason.COMPANY_RATE_EXCEEDED);
+		default:
+			return failure(Reason.OVERLOADED);
+		}
+	}
+
+	/**********
+	 * RESULT *
+	 **********/
+
+	public boolean isOk() {
+		return reason == Reason.OK;
+	}
+
+	public Reason getReason() {
+		return reason;
+	}
+
+	/**
+	 * @return the value of a successful result
+	 * 
+	 * @throws IllegalStateException The result is a failure.
+	 */
+	public T get() {
+		if (!isOk()) {
+			throw new IllegalStateException("No value, failed with " + reason);
+		}
+		return value;
+	}
+
+	/*************
+	 * TO STRING *
+	 *************/
+
+	@Override
+	public String toString() {
+		return isOk() ? "Result " + value : "Result " + reason;
+	}
+}
@@ -0,0 +1,220 @@
+package ds.gae.admission;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import ds.gae.AdmissionRejectedException;
+
+/**
+ * Decides whether a request may enter the car rental model. A request needs a
+ * token from the bucket of its renter and from the bucket of its car rental
+ * company, and is shed when too many requests are in progress already. Every
+ * check is lock-free and fails fast, and a shed request gives back what the
+ * earlier checks took.
+ */
+public class AdmissionController {
+
+	private static Logger logger = Logger.getLogger(AdmissionController.class.getName());
+
+	// no more buckets than this are kept per kind; keys beyond it share one bucket
+	private static final int MAX_BUCKETS = 10_000;
+	// full buckets are looked for at most this often once the maximum is reached
+	private static final long EVICTION_INTERVAL_NANOS = 1_000_000_000L;
+
+	private final int maxInFlight;
+
+	private final Buckets renterBuckets;
+	private final Buckets companyBuckets;
+	private final AtomicInteger inFlight = new AtomicInteger();
+
+	private final LongAdder admitted = new LongAdder();
+	private final LongAdder rejectedRenter = new LongAdder();
+	private final LongAdder rejectedCompany = new LongAdder();
+	private final LongAdder rejectedOverload = new LongAdder();
+
+	/***************
+	 * CONSTRUCTOR *
+	 ***************/
+
+	/**
+	 * Create an admission controller configured by the system properties
+	 * carrental.admission.renterRate, renterBurst, companyRate, companyBurst and
+	 * maxInFlight.
+	 */
+	public AdmissionController() {
+		this(
+				Integer.getInteger("carrental.admission.renterRate", 10),
+				Integer.getInteger("carrental.admission.renterBurst", 20),
+				Integer.getInteger("carrental.admission.companyRate", 500),
+				Integer.getInteger("carrental.admission.companyBurst", 1000),
+				Integer.getInteger("carrental.admission.maxInFlight", 64)
+		);
+	}
+
+	public AdmissionController(
+			double renterRate,
+			int renterBurst,
+			double companyRate,
+			int companyBurst,
+			int maxInFlight) {
+		this.renterBuckets = new Buckets("renter", renterRate, renterBurst);
+		this.companyBuckets = new Buckets("company", companyRate, companyBurst);
+		this.maxInFlight = maxInFlight;
+	}
+
+	/*************
+	 * ADMISSION *
+	 *************/
+
+	/**
+	 * Admit a request of the given renter for the given car rental company. Every
+	 * admitted request must be followed by a call to {@link #release()}.
+	 *
+	 * @param renter      name of the car renter
+	 * @param companyName name of the car rental company
+	 *
+	 * @throws AdmissionRejectedException The request is shed.
+	 */
+	public void admit(String renter, String companyName) throws AdmissionRejectedException {
+		AdmissionRejectedException rejection = tryAdmit(renter, companyName);
+		if (rejection != null) {
+			throw rejection;
+		}
+	}
+
+	/**
+	 * Admit a request like {@link #admit(String, String)}, without throwing.
+	 *
+	 * @return null if the request is admitted, otherwise the reason it is shed
+	 */
+	public AdmissionRejectedException tryAdmit(String renter, String companyName) {
+		// the in-flight slot is taken first: unlike a token it is free to give back
+		if (inFlight.incrementAndGet() > maxInFlight) {
+			inFlight.decrementAndGet();
+			rejectedOverload.increment();
+			return AdmissionRejectedException.OVERLOADED;
+		}
+		TokenBucket renterBucket = renterBuckets.get(renter);
+		if (!renterBucket.tryAcquire()) {
+			inFlight.decrementAndGet();
+			rejectedRenter.increment();
+			return AdmissionRejectedException.RENTER_RATE_EXCEEDED;
+		}
+		if (!companyBuckets.get(companyName).tryAcquire()) {
+			renterBucket.refund();
+			inFlight.decrementAndGet();
+			rejectedCompany.increment();
+			return AdmissionRejectedException.COMPANY_RATE_EXCEEDED;
+		}
+		admitted.increment();
+		return null;
+	}
+
+	/**
+	 * Signal that an admitted request has finished.
+	 */
+	public void release() {
+		inFlight.decrementAndGet();
+	}
+
+	/***********
+	 * METRICS *
+	 ***********/
+
+	public int getInFlight() {
+		return inFlight.get();
+	}
+
+	public long getAdmitted() {
+		return admitted.sum();
+	}
+
+	public long getRejectedByRenterRate() {
+		return rejectedRenter.sum();
+	}
+
+	public long getRejectedByCompanyRate() {
+		return rejectedCompany.sum();
+	}
+
+	public long getRejectedByOverload() {
+		return rejectedOverload.sum();
+	}
+
+	public long getRejected() {
+		return getRejectedByRenterRate() + getRejectedByCompanyRate() + getRejectedByOverload();
+	}
+
+	/*************
+	 * TO STRING *
+	 *************/
+
+	@Override
+	public String toString() {
+		return String.format(
+				"Admission [in flight: %d, admitted: %d, shed: renter %d, company %d, overload %d]",
+				getInFlight(),
+				getAdmitted(),
+				getRejectedByRenterRate(),
+				getRejectedByCompanyRate(),
+				getRejectedByOverload()
+		);
+	}
+
+	/**
+	 * The token buckets of one kind of key. Keys are chosen by clients, so the
+	 * number of buckets is bounded: once the maximum is reached, full buckets are
+	 * dropped, which loses no state, and if none are full every new key shares
+	 * one overflow bucket until there is room again.
+	 */
+	private static class Buckets {
+
+		private final String kind;
+		private final double rate;
+		private final int burst;
+		private final ConcurrentMap<String, TokenBucket> buckets = new ConcurrentHashMap<String, TokenBucket>();
+		private final TokenBucket overflow;
+		// earliest time of the next search for full buckets, so a flood of new
+		// keys does not scan the map on every request
+		private final AtomicLong nextEviction = new AtomicLong(System.nanoTime());
+
+		Buckets(String kind, double rate, int burst) {
+			this.kind = kind;
+			this.rate = rate;
+			this.burst = burst;
+			this.overflow = new TokenBucket(rate, burst);
+		}
+
+		TokenBucket get(String key) {
+			TokenBucket bucket = buckets.get(key);
+			if (bucket != null) {
+				return bucket;
+			}
+			if (buckets.size() >= MAX_BUCKETS) {
+				evictFullBuckets();
+				if (buckets.size() >= MAX_BUCKETS) {
+					return overflow;
+				}
+			}
+			return buckets.computeIfAbsent(key, k -> new TokenBucket(rate, burst));
+		}
+
+		// a full bucket behaves exactly like a new one, so it can safely be dropped
+		private void evictFullBuckets() {
+			long now = System.nanoTime();
+			long next = nextEviction.get();
+			if (now - next < 0 || !nextEviction.compareAndSet(next, now + EVICTION_INTERVAL_NANOS)) {
+				return;
+			}
+			int before = buckets.size();
+			buckets.values().removeIf(TokenBucket::isFull);
+			logger.log(Level.INFO, "Evicted {0} idle {1} token buckets, {2} left",
+					new Object[] { before - buckets.size(), kind, buckets.size() });
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package ds.gae.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. Instead of a token count, the bucket keeps the
+ * theoretical arrival time of the next request (GCRA), so acquiring a token is
+ * a single compare-and-set on one long.
+ */
+public class TokenBucket {
+
+	// nanoseconds needed to refill one token
+	private final long emissionInterval;
+	// how far the theoretical arrival time may run ahead of the clock
+	private final long tolerance;
+	private final AtomicLong theoreticalArrival;
+
+	/***************
+	 * CONSTRUCTOR *
+	 ***************/
+
+	/**
+	 * @param permitsPerSecond rate at which tokens are refilled
+	 * @param burst            maximum number of tokens in a full bucket
+	 */
+	public TokenBucket(double permitsPerSecond, int burst) {
+		if (permitsPerSecond <= 0 || burst < 1) {
+			throw new IllegalArgumentException("Illegal rate " + permitsPerSecond + " or burst " + burst);
+		}
+		this.emissionInterval = (long) (1_000_000_000L / permitsPerSecond);
+		this.tolerance = emissionInterval * burst;
+		this.theoreticalArrival = new AtomicLong(System.nanoTime());
+	}
+
+	/**********
+	 * TOKENS *
+	 **********/
+
+	/**
+	 * Take a token if one is available. Never blocks.
+	 *
+	 * @return True if a token was taken. False if the bucket is empty.
+	 */
+	public boolean tryAcquire() {
+		long now = System.nanoTime();
+		while (true) {
+			long arrival = theoreticalArrival.get();
+			long next = Math.max(arrival, now) + emissionInterval;
+			if (next - now > tolerance) {
+				return false;
+			}
+			if (theoreticalArrival.compareAndSet(arrival, next)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Give back a token taken by {@link #tryAcquire()} that was not used.
+	 */
+	public void refund() {
+		theoreticalArrival.addAndGet(-emissionInterval);
+	}
+
+	/**
+	 * @return True if the bucket refilled completely, so dropping it loses no
+	 *         state.
+	 */
+	public boolean isFull() {
+		return theoreticalArrival.get() - System.nanoTime() <= 0;
+	}
+}
@@ -1,14 +1,22 @@
 package ds.gae.entities;
 
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Set;
+import java.util.TreeMap;
 
 public class Car {
 
 	private int id;
 	private CarType carType;
-	private Set<Reservation> reservations;
+	// by start date; reservations of one car never overlap, so they are also
+	// ordered by end date and the gaps between them are the free periods
+	private NavigableMap<Date, Reservation> reservations;
 
 	/***************
 	 * CONSTRUCTOR *
@@ -17,7 +25,7 @@ public class Car {
 	public Car(int uid, CarType carType) {
 		this.id = uid;
 		this.carType = carType;
-		this.reservations = new HashSet<Reservation>();
+		this.reservations = new TreeMap<Date, Reservation>();
 	}
 
 	/******
@@ -40,29 +48,51 @@ public class Car {
 	 * RESERVATIONS *
 	 ****************/
 
-	public Set<Reservation> getReservations() {
-		return reservations;
+	// Only the hot tier is kept here, reservations that ended long ago are moved
+	// to the archive of the car rental company.
+	public synchronized Set<Reservation> getReservations() {
+		return new HashSet<Reservation>(reservations.values());
 	}
 
-	public boolean isAvailable(Date start, Date end) {
+	public synchronized boolean isAvailable(Date start, Date end) {
 		if (!start.before(end)) {
 			throw new IllegalArgumentException("Illegal given period");
 		}
 
-		for (Reservation reservation : getReservations()) {
-			if (reservation.getEndDate().before(start) || reservation.getStartDate().after(end)) {
-				continue;
-			}
-			return false;
-		}
-		return true;
+		// only the last reservation starting before the end of the period can
+		// still be running at its start
+		Map.Entry<Date, Reservation> last = reservations.floorEntry(end);
+		return last == null || last.getValue().getEndDate().before(start);
+	}
+
+	/**
+	 * Get the reservations that overlap the given period, ordered by start date.
+	 */
+	public synchronized List<Reservation> getReservations(Date from, Date to) {
+		Map.Entry<Date, Reservation> before = reservations.floorEntry(from);
+		Date first = before == null || before.getValue().getEndDate().before(from) ? from : before.getKey();
+		return new ArrayList<Reservation>(reservations.subMap(first, true, to, true).values());
 	}
 
-	public void addReservation(Reservation res) {
-		reservations.add(res);
+	public synchronized void addReservation(Reservation res) {
+		reservations.put(res.getStartDate(), res);
 	}
 
-	public void removeReservation(Reservation reservation) {
-		reservations.remove(reservation);
+	public synchronized boolean removeReservation(Reservation reservation) {
+		return reservations.remove(reservation.getStartDate(), reservation);
+	}
+
+	public synchronized List<Reservation> removeReservationsEndedBefore(Date cutoff) {
+		List<Reservation> removed = new ArrayList<Reservation>();
+		for (Iterator<Reservation> it = reservations.values().iterator(); it.hasNext();) {
+			Reservation reservation = it.next();
+			// ordered by end date as well, so the rest ended later
+			if (!reservation.getEndDate().before(cutoff)) {
+				break;
+			}
+			removed.add(reservation);
+			it.remove();
+		}
+		return removed;
 	}
 }
@@ -1,25 +1,60 @@
 package ds.gae.entities;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import ds.gae.ReservationException;
+import ds.gae.ReservationResult;
+import ds.gae.events.ReservationEventRing;
 
 public class CarRentalCompany {
 
 	private static Logger logger = Logger.getLogger(CarRentalCompany.class.getName());
 
+	// how long a renter stays on the waitlist
+	private static final long WAITLIST_TTL = TimeUnit.HOURS.toMillis(Integer.getInteger("carrental.waitlist.ttlHours", 168));
+	// how far alternative periods may lie from the requested one
+	private static final int MAX_SHIFT_DAYS = Integer.getInteger("carrental.suggestions.maxShiftDays", 60);
+	private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
 	private String name;
-	private Set<Car> cars;
-	private Map<String, CarType> carTypes = new HashMap<String, CarType>();
+	// replaced as a whole on every change to the cars or car types
+	private volatile Fleet fleet;
+	// ids of retired cars are never reused
+	private int nextCarId;
+	private ReservationArchive archive;
+	// the reservations on the cars per renter, in the order of ReservationKey, to
+	// page through the reservations of a renter without scanning the fleet
+	private ConcurrentMap<String, ConcurrentNavigableMap<ReservationKey, Reservation>> activeByRenter =
+			new ConcurrentHashMap<String, ConcurrentNavigableMap<ReservationKey, Reservation>>();
+	private Map<String, CarTypeStatistics> statistics = new ConcurrentHashMap<String, CarTypeStatistics>();
+	private List<ReservationListener> listeners = new CopyOnWriteArrayList<ReservationListener>();
+	// increased on every change to the reservations or the fleet
+	private AtomicLong version = new AtomicLong();
+	// changes are published here while holding the lock of this company, which
+	// makes this company the single writer of the ring
+	private ReservationEventRing events = new ReservationEventRing(Integer.getInteger("carrental.events.ringSize", 1024));
+	private Waitlist waitlist;
 
 	/***************
 	 * CONSTRUCTOR *
@@ -27,10 +62,18 @@ public class CarRentalCompany {
 
 	public CarRentalCompany(String name, Set<Car> cars) {
 		setName(name);
-		this.cars = cars;
+		this.fleet = new Fleet(cars, new HashMap<String, CarType>());
+		this.nextCarId = fleet.getMaxCarId() + 1;
+		this.archive = new ReservationArchive(name);
+		this.waitlist = new Waitlist(name);
+		Map<String, Integer> nbOfCars = new HashMap<String, Integer>();
 		for(Car car : cars) {
-			carTypes.put(car.getType().getName(), car.getType());
+			nbOfCars.merge(car.getType().getName(), 1, Integer::sum);
+		}
+		for (CarType type : fleet.getCarTypes().values()) {
+			statistics.put(type.getName(), new CarTypeStatistics(type, nbOfCars.get(type.getName())));
 		}
+		events.publishFleetLoaded(name, cars.size());
 	}
 
 	/********
@@ -45,21 +88,38 @@ public class CarRentalCompany {
 		this.name = name;
 	}
 
+	/***********
+	 * VERSION *
+	 ***********/
+
+	public long getVersion() {
+		return version.get();
+	}
+
 	/*************
 	 * CAR TYPES *
 	 *************/
 
 	public Collection<CarType> getAllCarTypes() {
-		return carTypes.values();
+		return fleet.getCarTypes().values();
 	}
 
 	public CarType getCarType(String carTypeName) {
-		return carTypes.get(carTypeName);
+		return fleet.getCarTypes().get(carTypeName);
 	}
 
 	public boolean isAvailable(String carTypeName, Date start, Date end) {
 		logger.log(Level.INFO, "<{0}> Checking availability for car type {1}", new Object[] { name, carTypeName });
-		return getAvailableCarTypes(start, end).contains(getCarType(carTypeName));
+		return isAvailable(fleet, carTypeName, start, end);
+	}
+
+	private static boolean isAvailable(Fleet fleet, String carTypeName, Date start, Date end) {
+		for (Car car : fleet.getCars(carTypeName)) {
+			if (car.isAvailable(start, end)) {
+				return true;
+			}
+		}
+		return false;
 	}
 
 	public Set<CarType> getAvailableCarTypes(Date start, Date end) {
@@ -77,26 +137,27 @@ public class CarRentalCompany {
 	 *********/
 
 	private Car getCar(int uid) {
-		for (Car car : cars) {
-			if (car.getId() == uid) {
-				return car;
-			}
+		Car car = fleet.getCar(uid);
+		if (car == null) {
+			throw new IllegalArgumentException("<" + name + "> No car with uid " + uid);
 		}
-		throw new IllegalArgumentException("<" + name + "> No car with uid " + uid);
+		return car;
 	}
 
 	public Set<Car> getCars() {
-		return cars;
+		return fleet.getCars();
 	}
 
-	private List<Car> getAvailableCars(String carType, Date start, Date end) {
-		List<Car> availableCars = new LinkedList<Car>();
-		for (Car car : cars) {
-			if (car.getType().getName().equals(carType) && car.isAvailable(start, end)) {
-				availableCars.add(car);
+	// a random free car, so reservations spread over the fleet
+	private Car getAvailableCar(String carType, Date start, Date end) {
+		Car picked = null;
+		int nbAvailable = 0;
+		for (Car car : fleet.getCars(carType)) {
+			if (car.isAvailable(start, end) && ThreadLocalRandom.current().nextInt(++nbAvailable) == 0) {
+				picked = car;
 			}
 		}
-		return availableCars;
+		return picked;
 	}
 
 	/****************
@@ -104,15 +165,34 @@ public class CarRentalCompany {
 	 ****************/
 
 	public Quote createQuote(ReservationConstraints constraints, String client) throws ReservationException {
-		logger.log(Level.INFO, "<{0}> Creating tentative reservation for {1} with constraints {2}",
-				new Object[] { name, client, constraints.toString() });
+		ReservationResult<Quote> result = tryCreateQuote(constraints, client);
+		if (!result.isOk()) {
+			throw ReservationException.stackless("<" + name + "> No cars available to satisfy the given constraints.");
+		}
+		return result.get();
+	}
 
-		CarType type = getCarType(constraints.getCarType());
+	/**
+	 * Create a quote like {@link #createQuote(ReservationConstraints, String)},
+	 * reporting a sold out or unknown car type in the result instead of throwing.
+	 */
+	public ReservationResult<Quote> tryCreateQuote(ReservationConstraints constraints, String client) {
+		logger.log(Level.INFO, "<{0}> Creating tentative reservation for {1} with constraints {2}",
+				new Object[] { name, client, constraints });
 
-		if (!isAvailable(constraints.getCarType(), constraints.getStartDate(), constraints.getEndDate())) {
-			throw new ReservationException("<" + name + "> No cars available to satisfy the given constraints.");
+		Fleet current = fleet;
+		CarType type = current.getCarTypes().get(constraints.getCarType());
+		if (type == null) {
+			return ReservationResult.failure(ReservationResult.Reason.UNKNOWN_CAR_TYPE);
+		}
+		if (!isAvailable(current, constraints.getCarType(), constraints.getStartDate(), constraints.getEndDate())) {
+			return ReservationResult.failure(ReservationResult.Reason.SOLD_OUT);
 		}
 
+		return ReservationResult.ok(newQuote(type, constraints, client));
+	}
+
+	private Quote newQuote(CarType type, ReservationConstraints constraints, String client) {
 		double price = calculateRentalPrice(
 				type.getRentalPricePerDay(), 
 				constraints.getStartDate(),
@@ -131,25 +211,442 @@ public class CarRentalCompany {
 
 	// Implementation can be subject to different pricing strategies
 	private double calculateRentalPrice(double rentalPricePerDay, Date start, Date end) {
-		return rentalPricePerDay * Math.ceil((end.getTime() - start.getTime()) / (1000 * 60 * 60 * 24D));
+		return rentalPricePerDay * getNbOfDays(start, end);
+	}
+
+	private static long getNbOfDays(Date start, Date end) {
+		return (long) Math.ceil((end.getTime() - start.getTime()) / (1000 * 60 * 60 * 24D));
 	}
 
 	public Reservation confirmQuote(Quote quote) throws ReservationException {
-		logger.log(Level.INFO, "<{0}> Reservation of {1}", new Object[] { name, quote.toString() });
-		List<Car> availableCars = getAvailableCars(quote.getCarType(), quote.getStartDate(), quote.getEndDate());
-		if (availableCars.isEmpty()) {
-			throw new ReservationException("Reservation failed, all cars of type " + quote.getCarType()
+		ReservationResult<Reservation> result = tryConfirmQuote(quote);
+		if (!result.isOk()) {
+			throw ReservationException.stackless("Reservation failed, all cars of type " + quote.getCarType()
 					+ " are unavailable from " + quote.getStartDate() + " to " + quote.getEndDate());
 		}
-		Car car = availableCars.get((int) (Math.random() * availableCars.size()));
+		return result.get();
+	}
+
+	/**
+	 * Confirm a quote like {@link #confirmQuote(Quote)}, reporting a sold out or
+	 * unknown car type in the result instead of throwing.
+	 */
+	// synchronized so two confirmations cannot pick the same free car
+	public synchronized ReservationResult<Reservation> tryConfirmQuote(Quote quote) {
+		logger.log(Level.INFO, "<{0}> Reservation of {1}", new Object[] { name, quote });
+		if (getCarType(quote.getCarType()) == null) {
+			return ReservationResult.failure(ReservationResult.Reason.UNKNOWN_CAR_TYPE);
+		}
+		Car car = getAvailableCar(quote.getCarType(), quote.getStartDate(), quote.getEndDate());
+		if (car == null) {
+			return ReservationResult.failure(ReservationResult.Reason.SOLD_OUT);
+		}
+		return ReservationResult.ok(reserve(car, quote));
+	}
 
+	private Reservation reserve(Car car, Quote quote) {
 		Reservation res = new Reservation(quote, car.getId());
 		car.addReservation(res);
+		activeByRenter.computeIfAbsent(res.getRenter(), renter -> new ConcurrentSkipListMap<ReservationKey, Reservation>())
+				.put(ReservationKey.of(res), res);
+		version.incrementAndGet();
+		events.publishConfirmed(name, res.getRenter(), res.getCarType(), res.getCarId(), res.getStartDate(),
+				res.getEndDate());
+		statistics.get(res.getCarType()).reservationConfirmed(getNbOfDays(res.getStartDate(), res.getEndDate()));
+		for (ReservationListener listener : listeners) {
+			listener.reservationConfirmed(res);
+		}
 		return res;
 	}
 
-	public void cancelReservation(Reservation res) {
-		logger.log(Level.INFO, "<{0}> Cancelling reservation {1}", new Object[] { name, res.toString() });
-		getCar(res.getCarId()).removeReservation(res);
+	public synchronized void cancelReservation(Reservation res) {
+		logger.log(Level.INFO, "<{0}> Cancelling reservation {1}", new Object[] { name, res });
+		// the car may have been retired since, leaving only archived reservations
+		Car car = fleet.getCar(res.getCarId());
+		if (car != null && car.removeReservation(res)) {
+			removeActive(Collections.singletonList(res));
+		} else if (!archive.remove(res)) {
+			return;
+		}
+		// the car type may have been retired since, taking its statistics along
+		CarTypeStatistics stats = statistics.get(res.getCarType());
+		if (stats != null) {
+			stats.reservationCancelled(getNbOfDays(res.getStartDate(), res.getEndDate()));
+		}
+		for (ReservationListener listener : listeners) {
+			listener.reservationCancelled(res);
+		}
+		version.incrementAndGet();
+		events.publishCancelled(name, res.getRenter(), res.getCarType(), res.getCarId(), res.getStartDate(),
+				res.getEndDate());
+		if (car != null) {
+			matchWaitlist(car, res.getStartDate(), res.getEndDate());
+		}
+	}
+
+	/****************
+	 * ALTERNATIVES *
+	 ****************/
+
+	/**
+	 * Find alternatives for the given constraints, typically after a quote for
+	 * them failed. The alternative periods have the requested length and start a
+	 * whole number of days, at most carrental.suggestions.maxShiftDays, before or
+	 * after the requested start. The periods closest to the requested one are
+	 * returned, and none that start in the past.
+	 *
+	 * @param constraints the requested constraints
+	 * @param k           the maximum number of alternative periods
+	 * @return the alternative periods and car types
+	 */
+	public ReservationAlternatives getAlternatives(ReservationConstraints constraints, int k) {
+		Fleet current = fleet;
+		String carTypeName = constraints.getCarType();
+		if (!current.getCarTypes().containsKey(carTypeName)) {
+			throw new IllegalArgumentException("<" + name + "> No car type " + carTypeName);
+		}
+		if (!constraints.getStartDate().before(constraints.getEndDate())) {
+			throw new IllegalArgumentException("Illegal given period");
+		}
+		if (k < 1) {
+			throw new IllegalArgumentException("Illegal number of alternatives " + k);
+		}
+		long start = constraints.getStartDate().getTime();
+		long duration = constraints.getEndDate().getTime() - start;
+
+		// bit MAX_SHIFT_DAYS + d is set if some car is free when shifted by d days
+		BitSet free = new BitSet(2 * MAX_SHIFT_DAYS + 1);
+		Date from = new Date(start - MAX_SHIFT_DAYS * DAY);
+		Date to = new Date(start + duration + MAX_SHIFT_DAYS * DAY);
+		for (Car car : current.getCars(carTypeName)) {
+			long busyUntil = Long.MIN_VALUE;
+			for (Reservation reservation : car.getReservations(from, to)) {
+				markFree(free, start, duration, busyUntil, reservation.getStartDate().getTime());
+				busyUntil = reservation.getEndDate().getTime();
+			}
+			markFree(free, start, duration, busyUntil, Long.MAX_VALUE);
+		}
+		long past = -Math.floorDiv(start - System.currentTimeMillis(), DAY);
+		if (past > -MAX_SHIFT_DAYS) {
+			free.clear(0, (int) Math.min(past, MAX_SHIFT_DAYS + 1) + MAX_SHIFT_DAYS);
+		}
+
+		// closest first, the earlier one of two equally close periods first
+		List<Integer> shifts = new ArrayList<Integer>();
+		for (int distance = 0; distance <= MAX_SHIFT_DAYS && shifts.size() < k; distance++) {
+			if (free.get(MAX_SHIFT_DAYS - distance)) {
+				shifts.add(-distance);
+			}
+			if (distance > 0 && shifts.size() < k && free.get(MAX_SHIFT_DAYS + distance)) {
+				shifts.add(distance);
+			}
+		}
+		shifts.sort(null);
+		List<ReservationConstraints> periods = new ArrayList<ReservationConstraints>();
+		for (int shift : shifts) {
+			long shiftedStart = start + shift * DAY;
+			periods.add(new ReservationConstraints(new Date(shiftedStart), new Date(shiftedStart + duration),
+					carTypeName));
+		}
+
+		List<CarType> carTypes = new ArrayList<CarType>();
+		for (CarType type : current.getCarTypes().values()) {
+			if (!type.getName().equals(carTypeName)
+					&& isAvailable(current, type.getName(), constraints.getStartDate(), constraints.getEndDate())) {
+				carTypes.add(type);
+			}
+		}
+		carTypes.sort(Comparator.comparingDouble(CarType::getRentalPricePerDay).thenComparing(CarType::getName));
+		return new ReservationAlternatives(constraints, periods, carTypes);
+	}
+
+	// Mark the shifts of the requested period that fall strictly between the end
+	// of one reservation and the start of the next, as in Car.isAvailable.
+	private static void markFree(BitSet free, long start, long duration, long busyUntil, long busyFrom) {
+		long first = busyUntil == Long.MIN_VALUE ? -MAX_SHIFT_DAYS : Math.floorDiv(busyUntil - start, DAY) + 1;
+		long last = busyFrom == Long.MAX_VALUE ? MAX_SHIFT_DAYS : -Math.floorDiv(start + duration - busyFrom, DAY) - 1;
+		first = Math.max(first, -MAX_SHIFT_DAYS);
+		last = Math.min(last, MAX_SHIFT_DAYS);
+		if (first <= last) {
+			free.set((int) first + MAX_SHIFT_DAYS, (int) last + MAX_SHIFT_DAYS + 1);
+		}
+	}
+
+	public void addReservationListener(ReservationListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * @return the ring this company publishes all changes to
+	 */
+	public ReservationEventRing getEventRing() {
+		return events;
+	}
+
+	/*****************
+	 * FLEET CHANGES *
+	 *****************/
+
+	// Changes build a new fleet and swap it in, while holding the lock of this
+	// company so they do not interleave with confirmations and cancellations.
+	// Quotes keep reading whichever fleet they started with.
+
+	public synchronized void addCarType(CarType type) {
+		Fleet current = fleet;
+		if (current.getCarTypes().containsKey(type.getName())) {
+			throw new IllegalStateException("<" + name + "> Car type " + type.getName() + " already exists");
+		}
+		Map<String, CarType> carTypes = new HashMap<String, CarType>(current.getCarTypes());
+		carTypes.put(type.getName(), type);
+		statistics.put(type.getName(), new CarTypeStatistics(type, 0));
+		swapFleet(new Fleet(current.getCars(), carTypes));
+	}
+
+	/**
+	 * Add the given number of new cars of an existing car type. Renters on the
+	 * waitlist for that type are matched against the new cars.
+	 *
+	 * @return the ids of the new cars
+	 */
+	public synchronized List<Integer> addCars(String carTypeName, int count) {
+		Fleet current = fleet;
+		CarType type = current.getCarTypes().get(carTypeName);
+		if (type == null) {
+			throw new IllegalArgumentException("<" + name + "> No car type " + carTypeName);
+		}
+		if (count < 1) {
+			throw new IllegalArgumentException("Illegal number of cars " + count);
+		}
+		Set<Car> cars = new HashSet<Car>(current.getCars());
+		List<Car> added = new ArrayList<Car>();
+		for (int i = 0; i < count; i++) {
+			Car car = new Car(nextCarId++, type);
+			cars.add(car);
+			added.add(car);
+		}
+		swapFleet(new Fleet(cars, current.getCarTypes()));
+
+		List<Integer> ids = new ArrayList<Integer>();
+		for (Car car : added) {
+			ids.add(car.getId());
+			matchWaitlist(car, new Date(Long.MIN_VALUE), new Date(Long.MAX_VALUE));
+		}
+		return ids;
+	}
+
+	/**
+	 * Take the given car out of the fleet. Its past reservations are archived.
+	 *
+	 * @throws IllegalStateException The car has reservations that did not end
+	 *                               yet.
+	 */
+	public synchronized void retireCar(int uid) {
+		Fleet current = fleet;
+		Car car = getCar(uid);
+		Date now = new Date();
+		for (Reservation reservation : car.getReservations()) {
+			if (!reservation.getEndDate().before(now)) {
+				throw new IllegalStateException("<" + name + "> Car " + uid + " still has upcoming reservations");
+			}
+		}
+		moveToArchive(car.removeReservationsEndedBefore(now));
+		Set<Car> cars = new HashSet<Car>(current.getCars());
+		cars.remove(car);
+		swapFleet(new Fleet(cars, current.getCarTypes()));
+	}
+
+	/**
+	 * Remove the given car type, which must not have any cars left. Renters
+	 * waiting for the car type can never be served, so their entries expire.
+	 */
+	public synchronized void retireCarType(String carTypeName) {
+		Fleet current = fleet;
+		if (!current.getCarTypes().containsKey(carTypeName)) {
+			throw new IllegalArgumentException("<" + name + "> No car type " + carTypeName);
+		}
+		if (current.getNbOfCars(carTypeName) > 0) {
+			throw new IllegalStateException("<" + name + "> Car type " + carTypeName + " still has cars");
+		}
+		Map<String, CarType> carTypes = new HashMap<String, CarType>(current.getCarTypes());
+		carTypes.remove(carTypeName);
+		swapFleet(new Fleet(current.getCars(), carTypes));
+		statistics.remove(carTypeName);
+		expire(waitlist.removeAll(carTypeName));
+	}
+
+	private void swapFleet(Fleet changed) {
+		fleet = changed;
+		for (CarTypeStatistics stats : statistics.values()) {
+			stats.setNbOfCars(changed.getNbOfCars(stats.getCarType().getName()));
+		}
+		version.incrementAndGet();
+		events.publishFleetChanged(name, changed.getCars().size());
+		logger.log(Level.INFO, "<{0}> Fleet changed to {1} cars of {2} types",
+				new Object[] { name, changed.getCars().size(), changed.getCarTypes().size() });
+	}
+
+	/************
+	 * WAITLIST *
+	 ************/
+
+	/**
+	 * Put the given renter on the waitlist for the given constraints. The renter
+	 * gets a reservation as soon as a cancellation frees a car of the requested
+	 * type for the whole requested period.
+	 *
+	 * @return the waitlist entry, to follow up on its status
+	 */
+	public synchronized WaitlistEntry joinWaitlist(ReservationConstraints constraints, String client) {
+		if (getCarType(constraints.getCarType()) == null) {
+			throw new IllegalArgumentException("<" + name + "> No car type " + constraints.getCarType());
+		}
+		if (!constraints.getStartDate().before(constraints.getEndDate())) {
+			throw new IllegalArgumentException("Illegal given period");
+		}
+		logger.log(Level.INFO, "<{0}> Adding {1} to the waitlist with constraints {2}",
+				new Object[] { name, client, constraints });
+		WaitlistEntry entry = waitlist.add(client, constraints, System.currentTimeMillis() + WAITLIST_TTL);
+		// a car may have been freed since the quote failed; it goes to whoever
+		// waits longest for that period, which may be someone else
+		Car car = getAvailableCar(constraints.getCarType(), constraints.getStartDate(), constraints.getEndDate());
+		if (car != null) {
+			matchWaitlist(car, constraints.getStartDate(), constraints.getEndDate());
+		}
+		return entry;
+	}
+
+	public synchronized boolean leaveWaitlist(WaitlistEntry entry) {
+		if (waitlist.remove(entry)) {
+			entry.setStatus(WaitlistEntry.Status.WITHDRAWN);
+			return true;
+		}
+		return false;
+	}
+
+	public synchronized int getWaitlistSize(String carTypeName) {
+		expire(waitlist.removeExpired(carTypeName, System.currentTimeMillis()));
+		return waitlist.size(carTypeName);
+	}
+
+	/**
+	 * Drop the waitlist entries that expired.
+	 *
+	 * @return the number of dropped entries
+	 */
+	public synchronized int removeExpiredWaitlistEntries() {
+		return expire(waitlist.removeExpired(null, System.currentTimeMillis()));
+	}
+
+	private static int expire(List<WaitlistEntry> expired) {
+		for (WaitlistEntry entry : expired) {
+			entry.setStatus(WaitlistEntry.Status.EXPIRED);
+		}
+		return expired.size();
+	}
+
+	// Only the given car changed, so only waiters overlapping the freed period
+	// of that car can be served now.
+	private void matchWaitlist(Car car, Date start, Date end) {
+		long now = System.currentTimeMillis();
+		for (WaitlistEntry entry : waitlist.getOverlapping(car.getType().getName(), start, end)) {
+			if (entry.getExpiresAt() < now) {
+				waitlist.remove(entry);
+				entry.setStatus(WaitlistEntry.Status.EXPIRED);
+				continue;
+			}
+			ReservationConstraints constraints = entry.getConstraints();
+			if (car.isAvailable(constraints.getStartDate(), constraints.getEndDate())) {
+				waitlist.remove(entry);
+				logger.log(Level.INFO, "<{0}> Confirming waitlist entry {1}", new Object[] { name, entry.getId() });
+				entry.confirmed(reserve(car, newQuote(car.getType(), constraints, entry.getRenter())));
+			}
+		}
+	}
+
+	/**************
+	 * STATISTICS *
+	 **************/
+
+	public CarTypeStatistics getCarTypeStatistics(String carTypeName) {
+		return statistics.get(carTypeName);
+	}
+
+	public Collection<CarTypeStatistics> getAllCarTypeStatistics() {
+		return statistics.values();
+	}
+
+	/**
+	 * @return the car type with the most reservations, or null if nothing was
+	 *         reserved yet
+	 */
+	public CarType getMostPopularCarType() {
+		CarTypeStatistics best = null;
+		for (CarTypeStatistics stats : statistics.values()) {
+			if (stats.getNbOfReservations() > 0
+					&& (best == null || stats.getNbOfReservations() > best.getNbOfReservations())) {
+				best = stats;
+			}
+		}
+		return best == null ? null : best.getCarType();
+	}
+
+	/***********
+	 * ARCHIVE *
+	 ***********/
+
+	// synchronized so a cancellation never finds a reservation between the tiers
+	public synchronized int archiveReservationsEndedBefore(Date cutoff) {
+		List<Reservation> ended = new ArrayList<Reservation>();
+		for (Car car : getCars()) {
+			ended.addAll(car.removeReservationsEndedBefore(cutoff));
+		}
+		moveToArchive(ended);
+		logger.log(Level.INFO, "<{0}> Archived {1} reservations that ended before {2}",
+				new Object[] { name, ended.size(), cutoff });
+		return ended.size();
+	}
+
+	// Archive first, so readers, which read the active reservations first, see
+	// every reservation in at least one of the tiers.
+	private void moveToArchive(List<Reservation> ended) {
+		archive.addAll(ended);
+		removeActive(ended);
+	}
+
+	private void removeActive(List<Reservation> removed) {
+		for (Reservation reservation : removed) {
+			Map<ReservationKey, Reservation> active = activeByRenter.get(reservation.getRenter());
+			if (active != null) {
+				active.remove(ReservationKey.of(reservation));
+				if (active.isEmpty()) {
+					activeByRenter.remove(reservation.getRenter());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the first reservations of the given renter, archived or not, that come
+	 * after the given key, in the order of {@link ReservationKey#ORDER}.
+	 *
+	 * @param after the key to start after, or null to start at the beginning
+	 */
+	public List<Reservation> getReservations(String renter, ReservationKey after, int limit) {
+		TreeMap<ReservationKey, Reservation> page = new TreeMap<ReservationKey, Reservation>();
+		ConcurrentNavigableMap<ReservationKey, Reservation> active = activeByRenter.get(renter);
+		if (active != null) {
+			for (Reservation reservation : (after == null ? active : active.tailMap(after, false)).values()) {
+				if (page.size() >= limit) {
+					break;
+				}
+				page.put(ReservationKey.of(reservation), reservation);
+			}
+		}
+		// a reservation that is being archived may be in both tiers
+		for (Reservation reservation : archive.get(renter, after, limit)) {
+			page.put(ReservationKey.of(reservation), reservation);
+		}
+		List<Reservation> out = new ArrayList<Reservation>(page.values());
+		return out.size() > limit ? new ArrayList<Reservation>(out.subList(0, limit)) : out;
 	}
 }
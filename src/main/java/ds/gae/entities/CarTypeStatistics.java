@@ -0,0 +1,81 @@
+package ds.gae.entities;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Usage counters of one car type in a car rental company, kept up to date as
+ * reservations are confirmed and cancelled.
+ */
+public class CarTypeStatistics {
+
+	private CarType carType;
+	private volatile int nbOfCars;
+	private AtomicLong nbOfReservations = new AtomicLong();
+	private AtomicLong reservedDays = new AtomicLong();
+
+	/***************
+	 * CONSTRUCTOR *
+	 ***************/
+
+	CarTypeStatistics(CarType carType, int nbOfCars) {
+		this.carType = carType;
+		this.nbOfCars = nbOfCars;
+	}
+
+	public CarType getCarType() {
+		return carType;
+	}
+
+	public int getNbOfCars() {
+		return nbOfCars;
+	}
+
+	public long getNbOfReservations() {
+		return nbOfReservations.get();
+	}
+
+	public long getReservedDays() {
+		return reservedDays.get();
+	}
+
+	/**
+	 * @return the average number of reserved days per car of this type, over all
+	 *         reservations that were not cancelled
+	 */
+	public double getReservedDaysPerCar() {
+		return nbOfCars == 0 ? 0 : (double) getReservedDays() / nbOfCars;
+	}
+
+	/************
+	 * COUNTERS *
+	 ************/
+
+	void setNbOfCars(int nbOfCars) {
+		this.nbOfCars = nbOfCars;
+	}
+
+	void reservationConfirmed(long days) {
+		nbOfReservations.incrementAndGet();
+		reservedDays.addAndGet(days);
+	}
+
+	void reservationCancelled(long days) {
+		nbOfReservations.decrementAndGet();
+		reservedDays.addAndGet(-days);
+	}
+
+	/*************
+	 * TO STRING *
+	 *************/
+
+	@Override
+	public String toString() {
+		return String.format(
+				"Statistics for %s [cars: %d, reservations: %d, reserved days: %d]",
+				getCarType().getName(),
+				getNbOfCars(),
+				getNbOfReservations(),
+				getReservedDays()
+		);
+	}
+}
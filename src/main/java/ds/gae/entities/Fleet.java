@@ -0,0 +1,70 @@
+package ds.gae.entities;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable snapshot of the cars and car types of a car rental company. Every
+ * change to the fleet builds a new snapshot, so readers never see a fleet that
+ * is half changed and never need a lock.
+ */
+class Fleet {
+
+	private final Set<Car> cars;
+	private final Map<String, CarType> carTypes;
+	private final Map<Integer, Car> carsById;
+	private final Map<String, List<Car>> carsByType;
+
+	/***************
+	 * CONSTRUCTOR *
+	 ***************/
+
+	Fleet(Set<Car> cars, Map<String, CarType> carTypes) {
+		Map<Integer, Car> byId = new HashMap<Integer, Car>();
+		Map<String, CarType> types = new HashMap<String, CarType>(carTypes);
+		Map<String, List<Car>> byType = new HashMap<String, List<Car>>();
+		for (Car car : cars) {
+			byId.put(car.getId(), car);
+			types.putIfAbsent(car.getType().getName(), car.getType());
+			byType.computeIfAbsent(car.getType().getName(), t -> new ArrayList<Car>()).add(car);
+		}
+		this.cars = Collections.unmodifiableSet(new LinkedHashSet<Car>(cars));
+		this.carTypes = Collections.unmodifiableMap(types);
+		this.carsById = Collections.unmodifiableMap(byId);
+		this.carsByType = Collections.unmodifiableMap(byType);
+	}
+
+	Set<Car> getCars() {
+		return cars;
+	}
+
+	Map<String, CarType> getCarTypes() {
+		return carTypes;
+	}
+
+	Car getCar(int uid) {
+		return carsById.get(uid);
+	}
+
+	List<Car> getCars(String carTypeName) {
+		List<Car> ofType = carsByType.get(carTypeName);
+		return ofType == null ? Collections.<Car>emptyList() : Collections.unmodifiableList(ofType);
+	}
+
+	int getNbOfCars(String carTypeName) {
+		return getCars(carTypeName).size();
+	}
+
+	int getMaxCarId() {
+		int max = 0;
+		for (int id : carsById.keySet()) {
+			max = Math.max(max, id);
+		}
+		return max;
+	}
+}
@@ -0,0 +1,61 @@
+package ds.gae.entities;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.StringTokenizer;
+
+/**
+ * Reads the cars of a car rental company from a company data file, such as
+ * hertz.csv. Every line that is not a comment holds a car type, in the order
+ * name, number of seats, trunk space, price per day and smoking allowed,
+ * followed by the number of cars of that type.
+ */
+public final class FleetData {
+
+	private FleetData() {
+	}
+
+	/**
+	 * Read the cars from the given data file on the class path.
+	 */
+	public static Set<Car> load(String name, String datafile) throws NumberFormatException, IOException {
+		// open file from jar
+		try (BufferedReader in = new BufferedReader(new InputStreamReader(
+				FleetData.class.getClassLoader().getResourceAsStream(datafile)))) {
+			return load(name, in);
+		}
+	}
+
+	/**
+	 * Read the cars from the given data, until its end.
+	 */
+	public static Set<Car> load(String name, BufferedReader in) throws NumberFormatException, IOException {
+		Set<Car> cars = new HashSet<Car>();
+		int carId = 1;
+
+		// read lines until the end of the input; ready() is not a reliable end
+		// test for request bodies
+		String line;
+		while ((line = in.readLine()) != null) {
+			// if comment: skip
+			if (line.startsWith("#")) {
+				continue;
+			}
+			// tokenize on ,
+			StringTokenizer csvReader = new StringTokenizer(line, ",");
+			// create new car type from first 5 fields
+			CarType type = new CarType(csvReader.nextToken(), Integer.parseInt(csvReader.nextToken()),
+					Float.parseFloat(csvReader.nextToken()), Double.parseDouble(csvReader.nextToken()),
+					Boolean.parseBoolean(csvReader.nextToken()));
+			// create N new cars with given type, where N is the 5th field
+			for (int i = Integer.parseInt(csvReader.nextToken()); i > 0; i--) {
+				cars.add(new Car(carId++, type));
+			}
+		}
+
+		return cars;
+	}
+}
@@ -0,0 +1,177 @@
+package ds.gae.entities;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Set of closed intervals that finds the intervals overlapping a given
+ * interval without looking at the others. It is a treap ordered by interval
+ * start, where every node also knows the highest end in its subtree, so whole
+ * subtrees that end too early can be skipped.
+ *
+ * @param <T> type of the values attached to the intervals
+ */
+class IntervalIndex<T> {
+
+	private final Random random = new Random();
+	private Node<T> root;
+	private int size;
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Add an interval. The id makes intervals with the same start distinct.
+	 */
+	void add(long start, long end, long id, T value) {
+		root = insert(root, new Node<T>(start, end, id, random.nextInt(), value));
+		size++;
+	}
+
+	/**
+	 * Remove the interval with the given start and id.
+	 *
+	 * @return True if the interval was found.
+	 */
+	boolean remove(long start, long id) {
+		int before = size;
+		root = delete(root, start, id);
+		return size < before;
+	}
+
+	/**
+	 * Collect the values of all intervals that overlap the given closed interval,
+	 * in order of interval start.
+	 */
+	void collectOverlapping(long from, long to, List<T> out) {
+		collect(root, from, to, out);
+	}
+
+	/**
+	 * Collect the values of all intervals, in order of interval start.
+	 */
+	void collectAll(List<T> out) {
+		collectOverlapping(Long.MIN_VALUE, Long.MAX_VALUE, out);
+	}
+
+	/*********
+	 * TREAP *
+	 *********/
+
+	private Node<T> insert(Node<T> node, Node<T> added) {
+		if (node == null) {
+			return added;
+		}
+		if (added.compareTo(node.start, node.id) < 0) {
+			node.left = insert(node.left, added);
+			if (node.left.priority > node.priority) {
+				node = rotateRight(node);
+			}
+		} else {
+			node.right = insert(node.right, added);
+			if (node.right.priority > node.priority) {
+				node = rotateLeft(node);
+			}
+		}
+		return node.update();
+	}
+
+	private Node<T> delete(Node<T> node, long start, long id) {
+		if (node == null) {
+			return null;
+		}
+		int cmp = node.compareTo(start, id);
+		if (cmp > 0) {
+			node.left = delete(node.left, start, id);
+		} else if (cmp < 0) {
+			node.right = delete(node.right, start, id);
+		} else {
+			size--;
+			return merge(node.left, node.right);
+		}
+		return node.update();
+	}
+
+	private Node<T> merge(Node<T> left, Node<T> right) {
+		if (left == null) {
+			return right;
+		}
+		if (right == null) {
+			return left;
+		}
+		if (left.priority > right.priority) {
+			left.right = merge(left.right, right);
+			return left.update();
+		}
+		right.left = merge(left, right.left);
+		return right.update();
+	}
+
+	private Node<T> rotateRight(Node<T> node) {
+		Node<T> left = node.left;
+		node.left = left.right;
+		left.right = node.update();
+		return left;
+	}
+
+	private Node<T> rotateLeft(Node<T> node) {
+		Node<T> right = node.right;
+		node.right = right.left;
+		right.left = node.update();
+		return right;
+	}
+
+	private void collect(Node<T> node, long from, long to, List<T> out) {
+		// nothing in this subtree ends late enough
+		if (node == null || node.maxEnd < from) {
+			return;
+		}
+		collect(node.left, from, to, out);
+		// everything to the right starts too late
+		if (node.start > to) {
+			return;
+		}
+		if (node.end >= from) {
+			out.add(node.value);
+		}
+		collect(node.right, from, to, out);
+	}
+
+	private static class Node<T> {
+
+		private final long start;
+		private final long end;
+		private final long id;
+		private final int priority;
+		private final T value;
+		private long maxEnd;
+		private Node<T> left;
+		private Node<T> right;
+
+		Node(long start, long end, long id, int priority, T value) {
+			this.start = start;
+			this.end = end;
+			this.id = id;
+			this.priority = priority;
+			this.value = value;
+			this.maxEnd = end;
+		}
+
+		int compareTo(long otherStart, long otherId) {
+			int cmp = Long.compare(start, otherStart);
+			return cmp != 0 ? cmp : Long.compare(id, otherId);
+		}
+
+		Node<T> update() {
+			maxEnd = end;
+			if (left != null) {
+				maxEnd = Math.max(maxEnd, left.maxEnd);
+			}
+			if (right != null) {
+				maxEnd = Math.max(maxEnd, right.maxEnd);
+			}
+			return this;
+		}
+	}
+}
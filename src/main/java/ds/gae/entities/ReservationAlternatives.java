@@ -0,0 +1,59 @@
+package ds.gae.entities;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Alternatives for reservation constraints that could not be met: nearby
+ * periods of the same length in which a car of the requested type is free,
+ * and other car types with a car free in the requested period.
+ */
+public class ReservationAlternatives {
+
+	private ReservationConstraints requested;
+	private List<ReservationConstraints> periods;
+	private List<CarType> carTypes;
+
+	/***************
+	 * CONSTRUCTOR *
+	 ***************/
+
+	ReservationAlternatives(ReservationConstraints requested, List<ReservationConstraints> periods,
+			List<CarType> carTypes) {
+		this.requested = requested;
+		this.periods = Collections.unmodifiableList(periods);
+		this.carTypes = Collections.unmodifiableList(carTypes);
+	}
+
+	public ReservationConstraints getRequested() {
+		return requested;
+	}
+
+	/**
+	 * @return constraints for the requested car type, ordered by start date
+	 */
+	public List<ReservationConstraints> getPeriods() {
+		return periods;
+	}
+
+	/**
+	 * @return the other car types, cheapest first
+	 */
+	public List<CarType> getCarTypes() {
+		return carTypes;
+	}
+
+	/*************
+	 * TO STRING *
+	 *************/
+
+	@Override
+	public String toString() {
+		return String.format(
+				"Alternatives for %s\nPeriods: %s\nCar types: %s",
+				getRequested(),
+				getPeriods(),
+				getCarTypes()
+		);
+	}
+}
@@ -0,0 +1,186 @@
+package ds.gae.entities;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Cold tier of the reservations of a car rental company. Reservations are kept
+ * per renter in deflated segments of compact binary records, and are only
+ * inflated again when they are read.
+ */
+public class ReservationArchive {
+
+	// small segments are merged until they reach this many reservations
+	private static final int SEGMENT_SIZE = 256;
+
+	private final String rentalCompany;
+	private final Map<String, List<Segment>> segmentsByRenter = new HashMap<String, List<Segment>>();
+	private int size;
+
+	/***************
+	 * CONSTRUCTOR *
+	 ***************/
+
+	public ReservationArchive(String rentalCompany) {
+		this.rentalCompany = rentalCompany;
+	}
+
+	/****************
+	 * RESERVATIONS *
+	 ****************/
+
+	public synchronized int size() {
+		return size;
+	}
+
+	public synchronized void addAll(Collection<Reservation> reservations) {
+		Map<String, List<Reservation>> byRenter = new HashMap<String, List<Reservation>>();
+		for (Reservation reservation : reservations) {
+			byRenter.computeIfAbsent(reservation.getRenter(), renter -> new ArrayList<Reservation>()).add(reservation);
+		}
+		for (Map.Entry<String, List<Reservation>> entry : byRenter.entrySet()) {
+			List<Reservation> added = entry.getValue();
+			List<Segment> segments = segmentsByRenter.computeIfAbsent(entry.getKey(), renter -> new ArrayList<Segment>());
+			if (!segments.isEmpty() && segments.get(segments.size() - 1).size + added.size() <= SEGMENT_SIZE) {
+				List<Reservation> merged = decode(entry.getKey(), segments.remove(segments.size() - 1));
+				merged.addAll(added);
+				added = merged;
+			}
+			segments.add(encode(added));
+			size += entry.getValue().size();
+		}
+	}
+
+	/**
+	 * Get the first archived reservations of the given renter that come after
+	 * the given key, in the order of {@link ReservationKey#ORDER}. Only segments
+	 * that can hold reservations of the page are inflated.
+	 *
+	 * @param after the key to start after, or null to start at the beginning
+	 */
+	public synchronized List<Reservation> get(String renter, ReservationKey after, int limit) {
+		List<Segment> candidates = new ArrayList<Segment>();
+		for (Segment segment : segments(renter)) {
+			if (after == null || segment.last.compareTo(after) > 0) {
+				candidates.add(segment);
+			}
+		}
+		candidates.sort(Comparator.comparing((Segment segment) -> segment.first));
+
+		List<Reservation> out = new ArrayList<Reservation>();
+		for (Segment segment : candidates) {
+			// this and all later segments start after the last reservation of a full page
+			if (out.size() >= limit && ReservationKey.of(out.get(limit - 1)).compareTo(segment.first) < 0) {
+				break;
+			}
+			for (Reservation reservation : decode(renter, segment)) {
+				if (after == null || ReservationKey.of(reservation).compareTo(after) > 0) {
+					out.add(reservation);
+				}
+			}
+			out.sort(ReservationKey.ORDER);
+			if (out.size() > limit) {
+				out.subList(limit, out.size()).clear();
+			}
+		}
+		return out;
+	}
+
+	public synchronized boolean remove(Reservation reservation) {
+		ReservationKey key = ReservationKey.of(reservation);
+		List<Segment> segments = segments(reservation.getRenter());
+		for (int i = 0; i < segments.size(); i++) {
+			Segment segment = segments.get(i);
+			if (segment.first.compareTo(key) > 0 || segment.last.compareTo(key) < 0) {
+				continue;
+			}
+			List<Reservation> decoded = decode(reservation.getRenter(), segment);
+			if (decoded.remove(reservation)) {
+				if (decoded.isEmpty()) {
+					segments.remove(i);
+				} else {
+					segments.set(i, encode(decoded));
+				}
+				size--;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private List<Segment> segments(String renter) {
+		List<Segment> segments = segmentsByRenter.get(renter);
+		return segments == null ? new ArrayList<Segment>() : segments;
+	}
+
+	/************
+	 * ENCODING *
+	 ************/
+
+	// renter and rental company are implied by the segment, so only the
+	// remaining fields are written
+	private Segment encode(List<Reservation> reservations) {
+		reservations.sort(ReservationKey.ORDER);
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+			for (Reservation reservation : reservations) {
+				out.writeInt(reservation.getCarId());
+				out.writeLong(reservation.getStartDate().getTime());
+				out.writeLong(reservation.getEndDate().getTime());
+				out.writeUTF(reservation.getCarType());
+				out.writeDouble(reservation.getRentalPrice());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return new Segment(reservations.size(), bytes.toByteArray(), ReservationKey.of(reservations.get(0)),
+				ReservationKey.of(reservations.get(reservations.size() - 1)));
+	}
+
+	private List<Reservation> decode(String renter, Segment segment) {
+		List<Reservation> reservations = new ArrayList<Reservation>(segment.size);
+		try (DataInputStream in = new DataInputStream(
+				new InflaterInputStream(new ByteArrayInputStream(segment.data)))) {
+			for (int i = 0; i < segment.size; i++) {
+				int carId = in.readInt();
+				Date start = new Date(in.readLong());
+				Date end = new Date(in.readLong());
+				String carType = in.readUTF();
+				double price = in.readDouble();
+				reservations.add(new Reservation(new Quote(renter, start, end, rentalCompany, carType, price), carId));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return reservations;
+	}
+
+	private static class Segment {
+
+		private final int size;
+		private final byte[] data;
+		// keys of the first and last reservation, the segment is sorted by key
+		private final ReservationKey first;
+		private final ReservationKey last;
+
+		Segment(int size, byte[] data, ReservationKey first, ReservationKey last) {
+			this.size = size;
+			this.data = data;
+			this.first = first;
+			this.last = last;
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package ds.gae.entities;
+
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * Position of a reservation in the list of reservations of a renter, which is
+ * ordered by start date, car rental company and car. Reservations of one car
+ * never overlap, so no two reservations share a position. The position does
+ * not depend on whether a reservation is archived, so it is a stable cursor
+ * to page through that list.
+ */
+public final class ReservationKey implements Comparable<ReservationKey> {
+
+	public static final Comparator<Reservation> ORDER = Comparator
+			.comparingLong((Reservation r) -> r.getStartDate().getTime())
+			.thenComparing(Reservation::getRentalCompany)
+			.thenComparingInt(Reservation::getCarId);
+
+	private final long startTime;
+	private final String rentalCompany;
+	private final int carId;
+
+	/***************
+	 * CONSTRUCTOR *
+	 ***************/
+
+	public ReservationKey(long startTime, String rentalCompany, int carId) {
+		this.startTime = startTime;
+		this.rentalCompany = Objects.requireNonNull(rentalCompany);
+		this.carId = carId;
+	}
+
+	public static ReservationKey of(Reservation reservation) {
+		return new ReservationKey(reservation.getStartDate().getTime(), reservation.getRentalCompany(),
+				reservation.getCarId());
+	}
+
+	public long getStartTime() {
+		return startTime;
+	}
+
+	public String getRentalCompany() {
+		return rentalCompany;
+	}
+
+	public int getCarId() {
+		return carId;
+	}
+
+	@Override
+	public int compareTo(ReservationKey other) {
+		int cmp = Long.compare(startTime, other.startTime);
+		if (cmp == 0) {
+			cmp = rentalCompany.compareTo(other.rentalCompany);
+		}
+		return cmp != 0 ? cmp : Integer.compare(carId, other.carId);
+	}
+
+	/*************
+	 * TO STRING *
+	 *************/
+
+	@Override
+	public String toString() {
+		return String.format("Reservation key [start %d, company %s, car %d]", startTime, rentalCompany, carId);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(startTime, rentalCompany, carId);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		ReservationKey other = (ReservationKey) obj;
+		return startTime == other.startTime && rentalCompany.equals(other.rentalCompany) && carId == other.carId;
+	}
+}
@@ -0,0 +1,12 @@
+package ds.gae.entities;
+
+/**
+ * Gets notified by a car rental company after a reservation was confirmed or
+ * cancelled. Listeners are called on the thread that changed the reservation.
+ */
+public interface ReservationListener {
+
+	void reservationConfirmed(Reservation reservation);
+
+	void reservationCancelled(Reservation reservation);
+}
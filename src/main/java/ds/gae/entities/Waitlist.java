@@ -0,0 +1,105 @@
+package ds.gae.entities;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Renters waiting for a car of a car rental company, indexed per car type by
+ * the period they want to rent. Not thread-safe: the car rental company only
+ * uses it while holding its own lock.
+ */
+class Waitlist {
+
+	private final String rentalCompany;
+	private final Map<String, IntervalIndex<WaitlistEntry>> byCarType = new HashMap<String, IntervalIndex<WaitlistEntry>>();
+	private long nextId;
+
+	/***************
+	 * CONSTRUCTOR *
+	 ***************/
+
+	Waitlist(String rentalCompany) {
+		this.rentalCompany = rentalCompany;
+	}
+
+	/***********
+	 * ENTRIES *
+	 ***********/
+
+	WaitlistEntry add(String renter, ReservationConstraints constraints, long expiresAt) {
+		WaitlistEntry entry = new WaitlistEntry(nextId++, renter, rentalCompany, constraints, expiresAt);
+		byCarType.computeIfAbsent(constraints.getCarType(), type -> new IntervalIndex<WaitlistEntry>()).add(
+				constraints.getStartDate().getTime(),
+				constraints.getEndDate().getTime(),
+				entry.getId(),
+				entry);
+		return entry;
+	}
+
+	boolean remove(WaitlistEntry entry) {
+		IntervalIndex<WaitlistEntry> index = byCarType.get(entry.getConstraints().getCarType());
+		return index != null && index.remove(entry.getConstraints().getStartDate().getTime(), entry.getId());
+	}
+
+	/**
+	 * Get the entries for the given car type whose period overlaps the given
+	 * period, longest waiting first.
+	 */
+	List<WaitlistEntry> getOverlapping(String carType, Date start, Date end) {
+		List<WaitlistEntry> out = new ArrayList<WaitlistEntry>();
+		IntervalIndex<WaitlistEntry> index = byCarType.get(carType);
+		if (index != null) {
+			index.collectOverlapping(start.getTime(), end.getTime(), out);
+			out.sort(Comparator.comparingLong(WaitlistEntry::getId));
+		}
+		return out;
+	}
+
+	/**
+	 * Remove the entries that expired before the given time, so entries for
+	 * periods without cancellations do not stay around.
+	 *
+	 * @param carType the car type to purge, or null for all car types
+	 * @return the removed entries
+	 */
+	List<WaitlistEntry> removeExpired(String carType, long now) {
+		List<WaitlistEntry> expired = new ArrayList<WaitlistEntry>();
+		for (Map.Entry<String, IntervalIndex<WaitlistEntry>> index : byCarType.entrySet()) {
+			if (carType != null && !carType.equals(index.getKey())) {
+				continue;
+			}
+			List<WaitlistEntry> entries = new ArrayList<WaitlistEntry>();
+			index.getValue().collectAll(entries);
+			for (WaitlistEntry entry : entries) {
+				if (entry.getExpiresAt() < now) {
+					index.getValue().remove(entry.getConstraints().getStartDate().getTime(), entry.getId());
+					expired.add(entry);
+				}
+			}
+		}
+		return expired;
+	}
+
+	/**
+	 * Remove all entries for the given car type.
+	 *
+	 * @return the removed entries
+	 */
+	List<WaitlistEntry> removeAll(String carType) {
+		List<WaitlistEntry> out = new ArrayList<WaitlistEntry>();
+		IntervalIndex<WaitlistEntry> index = byCarType.remove(carType);
+		if (index != null) {
+			index.collectAll(out);
+		}
+		return out;
+	}
+
+	int size(String carType) {
+		IntervalIndex<WaitlistEntry> index = byCarType.get(carType);
+		return index == null ? 0 : index.size();
+	}
+}
@@ -0,0 +1,93 @@
+package ds.gae.entities;
+
+/**
+ * A renter waiting for a car of a sold out car type. The entry is confirmed
+ * automatically as soon as a cancellation frees a car for its whole period.
+ */
+public class WaitlistEntry {
+
+	public enum Status {
+		WAITING, CONFIRMED, WITHDRAWN, EXPIRED
+	}
+
+	private long id;
+	private String renter;
+	private String rentalCompany;
+	private ReservationConstraints constraints;
+	private long expiresAt;
+	private volatile Status status = Status.WAITING;
+	private volatile Reservation reservation;
+
+	/***************
+	 * CONSTRUCTOR *
+	 ***************/
+
+	WaitlistEntry(long id, String renter, String rentalCompany, ReservationConstraints constraints, long expiresAt) {
+		this.id = id;
+		this.renter = renter;
+		this.rentalCompany = rentalCompany;
+		this.constraints = constraints;
+		this.expiresAt = expiresAt;
+	}
+
+	public long getId() {
+		return id;
+	}
+
+	public String getRenter() {
+		return renter;
+	}
+
+	public String getRentalCompany() {
+		return rentalCompany;
+	}
+
+	public ReservationConstraints getConstraints() {
+		return constraints;
+	}
+
+	/**
+	 * @return the time in milliseconds since the epoch after which the renter
+	 *         stops waiting
+	 */
+	public long getExpiresAt() {
+		return expiresAt;
+	}
+
+	public Status getStatus() {
+		return status;
+	}
+
+	/**
+	 * @return the reservation made for this entry, or null if it is not
+	 *         confirmed
+	 */
+	public Reservation getReservation() {
+		return reservation;
+	}
+
+	void confirmed(Reservation reservation) {
+		this.reservation = reservation;
+		this.status = Status.CONFIRMED;
+	}
+
+	void setStatus(Status status) {
+		this.status = status;
+	}
+
+	/*************
+	 * TO STRING *
+	 *************/
+
+	@Override
+	public String toString() {
+		return String.format(
+				"Waitlist entry %d for %s at %s [%s]\n%s",
+				getId(),
+				getRenter(),
+				getRentalCompany(),
+				getStatus(),
+				getConstraints()
+		);
+	}
+}
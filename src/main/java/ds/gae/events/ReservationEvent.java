@@ -0,0 +1,122 @@
+package ds.gae.events;
+
+/**
+ * A change to the reservations or the fleet of a car rental company. Event
+ * objects are allocated once, as slots of a {@link ReservationEventRing}, and
+ * are overwritten for every new event. Handlers get a copy that is only valid
+ * until they return.
+ */
+public class ReservationEvent {
+
+	public enum Type {
+		CONFIRMED, CANCELLED, FLEET_LOADED, FLEET_CHANGED
+	}
+
+	// the fields are volatile so readers can tell a slot was overwritten while
+	// they copied it, see ReservationEventRing
+	private volatile long sequence = -1;
+	private volatile Type type;
+	private volatile String rentalCompany;
+	private volatile String renter;
+	private volatile String carType;
+	private volatile int carId;
+	private volatile long startDate;
+	private volatile long endDate;
+	private volatile int nbOfCars;
+
+	public long getSequence() {
+		return sequence;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public String getRentalCompany() {
+		return rentalCompany;
+	}
+
+	/**
+	 * @return the renter of the reservation, or null for fleet events
+	 */
+	public String getRenter() {
+		return renter;
+	}
+
+	/**
+	 * @return the car type of the reservation, or null for fleet events
+	 */
+	public String getCarType() {
+		return carType;
+	}
+
+	public int getCarId() {
+		return carId;
+	}
+
+	/**
+	 * @return the start of the reservation in milliseconds since the epoch
+	 */
+	public long getStartDate() {
+		return startDate;
+	}
+
+	/**
+	 * @return the end of the reservation in milliseconds since the epoch
+	 */
+	public long getEndDate() {
+		return endDate;
+	}
+
+	/**
+	 * @return the number of cars in the fleet, for fleet events
+	 */
+	public int getNbOfCars() {
+		return nbOfCars;
+	}
+
+	/*************
+	 * MUTATION *
+	 *************/
+
+	void setSequence(long sequence) {
+		this.sequence = sequence;
+	}
+
+	void set(Type type, String rentalCompany, String renter, String carType, int carId, long startDate,
+			long endDate, int nbOfCars) {
+		this.type = type;
+		this.rentalCompany = rentalCompany;
+		this.renter = renter;
+		this.carType = carType;
+		this.carId = carId;
+		this.startDate = startDate;
+		this.endDate = endDate;
+		this.nbOfCars = nbOfCars;
+	}
+
+	void copyFrom(ReservationEvent other) {
+		set(other.type, other.rentalCompany, other.renter, other.carType, other.carId, other.startDate,
+				other.endDate, other.nbOfCars);
+	}
+
+	/*************
+	 * TO STRING *
+	 *************/
+
+	@Override
+	public String toString() {
+		return String.format(
+				"Event %d: %s at %s [renter: %s, car type: %s, car: %d, from %d to %d, cars: %d]",
+				getSequence(),
+				getType(),
+				getRentalCompany(),
+				getRenter(),
+				getCarType(),
+				getCarId(),
+				getStartDate(),
+				getEndDate(),
+				getNbOfCars()
+		);
+	}
+}
@@ -0,0 +1,16 @@
+package ds.gae.events;
+
+/**
+ * Consumes reservation events on the thread of its
+ * {@link ReservationEventProcessor}.
+ */
+@FunctionalInterface
+public interface ReservationEventHandler {
+
+	/**
+	 * @param event      the event, only valid until this method returns
+	 * @param endOfBatch True if no further events are available right now, e.g.
+	 *                   to flush work buffered for the batch.
+	 */
+	void onEvent(ReservationEvent event, boolean endOfBatch);
+}
@@ -0,0 +1,122 @@
+package ds.gae.events;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Feeds the events of one or more rings to a handler on a dedicated thread, in
+ * batches of everything that was published since the previous batch.
+ */
+public class ReservationEventProcessor implements Runnable {
+
+	private static Logger logger = Logger.getLogger(ReservationEventProcessor.class.getName());
+
+	private static final long MAX_IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+	private final ReservationEventHandler handler;
+	private final List<RingReader> readers = new CopyOnWriteArrayList<RingReader>();
+	// reused for every event, so processing does not allocate either
+	private final ReservationEvent event = new ReservationEvent();
+	private final AtomicLong processed = new AtomicLong();
+	private final AtomicLong dropped = new AtomicLong();
+	private volatile boolean running = true;
+
+	/***************
+	 * CONSTRUCTOR *
+	 ***************/
+
+	public ReservationEventProcessor(ReservationEventHandler handler) {
+		this.handler = handler;
+	}
+
+	/**
+	 * Start reading the given ring from the given sequence on.
+	 */
+	public void addRing(ReservationEventRing ring, long fromSequence) {
+		readers.add(new RingReader(ring, fromSequence));
+	}
+
+	public void stop() {
+		running = false;
+	}
+
+	/***********
+	 * METRICS *
+	 ***********/
+
+	public long getProcessed() {
+		return processed.get();
+	}
+
+	/**
+	 * @return the number of events that were overwritten before this processor
+	 *         could read them
+	 */
+	public long getDropped() {
+		return dropped.get();
+	}
+
+	/**************
+	 * PROCESSING *
+	 **************/
+
+	@Override
+	public void run() {
+		long idleNanos = 0;
+		while (running) {
+			boolean busy = false;
+			for (RingReader reader : readers) {
+				busy |= drain(reader);
+			}
+			if (busy) {
+				idleNanos = 0;
+			} else {
+				// back off gradually while there is nothing to do
+				idleNanos = Math.min(MAX_IDLE_NANOS, Math.max(1_000, idleNanos * 2));
+				LockSupport.parkNanos(idleNanos);
+			}
+		}
+	}
+
+	private boolean drain(RingReader reader) {
+		long available = reader.ring.getCursor();
+		if (reader.next > available) {
+			return false;
+		}
+		long oldest = available - reader.ring.getCapacity() + 1;
+		if (reader.next < oldest) {
+			dropped.addAndGet(oldest - reader.next);
+			reader.next = oldest;
+		}
+		for (; reader.next <= available; reader.next++) {
+			if (!reader.ring.read(reader.next, event)) {
+				dropped.incrementAndGet();
+				continue;
+			}
+			try {
+				handler.onEvent(event, reader.next == available);
+			} catch (RuntimeException e) {
+				logger.log(Level.SEVERE, "Event handler failed on " + event, e);
+			}
+			processed.incrementAndGet();
+		}
+		return true;
+	}
+
+	private static class RingReader {
+
+		private final ReservationEventRing ring;
+		// only accessed by the processor thread
+		private long next;
+
+		RingReader(ReservationEventRing ring, long next) {
+			this.ring = ring;
+			this.next = next;
+		}
+	}
+}
@@ -0,0 +1,108 @@
+package ds.gae.events;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed size ring of reservation events with a single writer and any number of
+ * readers. Publishing never blocks and never allocates: the writer overwrites
+ * the oldest slot, and a reader that falls a whole ring behind skips the events
+ * it missed. Readers never lock.
+ */
+public class ReservationEventRing {
+
+	private final ReservationEvent[] slots;
+	private final int mask;
+	// sequence of the last published event
+	private final AtomicLong cursor = new AtomicLong(-1);
+
+	/***************
+	 * CONSTRUCTOR *
+	 ***************/
+
+	/**
+	 * @param capacity number of events kept, rounded up to a power of two
+	 */
+	public ReservationEventRing(int capacity) {
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		this.slots = new ReservationEvent[size];
+		for (int i = 0; i < size; i++) {
+			slots[i] = new ReservationEvent();
+		}
+		this.mask = size - 1;
+	}
+
+	public int getCapacity() {
+		return slots.length;
+	}
+
+	/**
+	 * @return the sequence of the last published event, or -1 if nothing was
+	 *         published yet
+	 */
+	public long getCursor() {
+		return cursor.get();
+	}
+
+	/**************
+	 * PUBLISHING *
+	 **************/
+
+	// Only one thread may publish at a time: the car rental company publishes
+	// while holding its own lock.
+
+	public void publishConfirmed(String rentalCompany, String renter, String carType, int carId, Date start,
+			Date end) {
+		publish(ReservationEvent.Type.CONFIRMED, rentalCompany, renter, carType, carId, start.getTime(), end.getTime(),
+				0);
+	}
+
+	public void publishCancelled(String rentalCompany, String renter, String carType, int carId, Date start,
+			Date end) {
+		publish(ReservationEvent.Type.CANCELLED, rentalCompany, renter, carType, carId, start.getTime(), end.getTime(),
+				0);
+	}
+
+	public void publishFleetLoaded(String rentalCompany, int nbOfCars) {
+		publish(ReservationEvent.Type.FLEET_LOADED, rentalCompany, null, null, 0, 0, 0, nbOfCars);
+	}
+
+	public void publishFleetChanged(String rentalCompany, int nbOfCars) {
+		publish(ReservationEvent.Type.FLEET_CHANGED, rentalCompany, null, null, 0, 0, 0, nbOfCars);
+	}
+
+	private void publish(ReservationEvent.Type type, String rentalCompany, String renter, String carType, int carId,
+			long start, long end, int nbOfCars) {
+		long sequence = cursor.get() + 1;
+		ReservationEvent slot = slots[(int) sequence & mask];
+		// mark the slot as being overwritten before touching its fields
+		slot.setSequence(-1);
+		slot.set(type, rentalCompany, renter, carType, carId, start, end, nbOfCars);
+		slot.setSequence(sequence);
+		cursor.lazySet(sequence);
+	}
+
+	/***********
+	 * READING *
+	 ***********/
+
+	/**
+	 * Copy the event with the given sequence.
+	 *
+	 * @param sequence sequence of the event, at most {@link #getCursor()}
+	 * @param into     the event to copy into
+	 * @return True if the event was copied. False if it was already overwritten
+	 *         by a newer event.
+	 */
+	public boolean read(long sequence, ReservationEvent into) {
+		ReservationEvent slot = slots[(int) sequence & mask];
+		if (slot.getSequence() != sequence) {
+			return false;
+		}
+		into.copyFrom(slot);
+		into.setSequence(sequence);
+		// the writer marks the slot before changing it, so an unchanged sequence
+		// means the copy is consistent
+		return slot.getSequence() == sequence;
+	}
+}
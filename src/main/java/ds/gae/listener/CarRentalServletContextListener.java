@@ -1,11 +1,5 @@
 package ds.gae.listener;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.StringTokenizer;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -13,9 +7,8 @@ import javax.servlet.ServletContextEvent;
 import javax.servlet.ServletContextListener;
 
 import ds.gae.CarRentalModel;
-import ds.gae.entities.Car;
-import ds.gae.entities.CarRentalCompany;
-import ds.gae.entities.CarType;
+import ds.gae.ReservationArchiver;
+import ds.gae.entities.FleetData;
 
 public class CarRentalServletContextListener implements ServletContextListener {
 		
@@ -28,6 +21,9 @@ public class CarRentalServletContextListener implements ServletContextListener {
 		if (!isDummyDataAvailable()) {
 			addDummyData();
 		}
+
+		// move reservations that ended long ago out of the hot tier
+		ReservationArchiver.start();
 		
 		// check that correct launch configuration is used
 		if ("distributed-systems-gae".equals(System.getenv("DATASTORE_DATASET"))) {
@@ -53,48 +49,10 @@ public class CarRentalServletContextListener implements ServletContextListener {
 	}
 
 	private void loadRental(String name, String datafile) {
-		Logger.getLogger(CarRentalServletContextListener.class.getName()).log(Level.INFO, "loading {0} from file {1}",
+		Logger.getLogger(CarRentalServletContextListener.class.getName()).log(Level.INFO, "registering {0} from file {1}",
 				new Object[] { name, datafile });
-		try {
-			Set<Car> cars = loadData(name, datafile);
-			CarRentalCompany company = new CarRentalCompany(name, cars);
-			// FIXME: use persistence instead
-            CarRentalModel.get().CRCS.put(name, company);
-		} catch (NumberFormatException ex) {
-			Logger.getLogger(CarRentalServletContextListener.class.getName()).log(Level.SEVERE, "bad file", ex);
-		} catch (IOException ex) {
-			Logger.getLogger(CarRentalServletContextListener.class.getName()).log(Level.SEVERE, null, ex);
-		}
-	}
-
-	public static Set<Car> loadData(String name, String datafile) throws NumberFormatException, IOException {
-		Set<Car> cars = new HashSet<Car>();
-		int carId = 1;
-
-		// open file from jar
-		BufferedReader in = new BufferedReader(new InputStreamReader(
-				CarRentalServletContextListener.class.getClassLoader().getResourceAsStream(datafile)));
-		// while next line exists
-		while (in.ready()) {
-			// read line
-			String line = in.readLine();
-			// if comment: skip
-			if (line.startsWith("#")) {
-				continue;
-			}
-			// tokenize on ,
-			StringTokenizer csvReader = new StringTokenizer(line, ",");
-			// create new car type from first 5 fields
-			CarType type = new CarType(csvReader.nextToken(), Integer.parseInt(csvReader.nextToken()),
-					Float.parseFloat(csvReader.nextToken()), Double.parseDouble(csvReader.nextToken()),
-					Boolean.parseBoolean(csvReader.nextToken()));
-			// create N new cars with given type, where N is the 5th field
-			for (int i = Integer.parseInt(csvReader.nextToken()); i > 0; i--) {
-				cars.add(new Car(carId++, type));
-			}
-		}
-
-		return cars;
+		// the file is only read when the company is first accessed
+		CarRentalModel.get().registerCompany(name, () -> FleetData.load(name, datafile));
 	}
 
 	@Override
@@ -0,0 +1,85 @@
+package ds.gae.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generates car rental company data files in the format read by
+ * {@link ds.gae.entities.FleetData#load}.
+ */
+public class FleetGenerator {
+
+	private final Random random;
+
+	/***************
+	 * CONSTRUCTOR *
+	 ***************/
+
+	public FleetGenerator(long seed) {
+		this.random = new Random(seed);
+	}
+
+	/**
+	 * Write the data of one company with the given number of car types and cars.
+	 * The cars are spread randomly over the car types, with at least one car per
+	 * type.
+	 */
+	public void writeCompany(Writer writer, int nbOfCarTypes, int nbOfCars) {
+		if (nbOfCarTypes < 1 || nbOfCars < nbOfCarTypes) {
+			throw new IllegalArgumentException("Need at least one car per car type");
+		}
+		int[] counts = new int[nbOfCarTypes];
+		for (int i = 0; i < nbOfCars; i++) {
+			counts[i < nbOfCarTypes ? i : random.nextInt(nbOfCarTypes)]++;
+		}
+		PrintWriter out = new PrintWriter(writer);
+		out.println("#type name,nb of seats,trunk space in liters,price per day,smoking,number of cars of this type");
+		for (int i = 0; i < nbOfCarTypes; i++) {
+			out.printf(Locale.ROOT, "%s,%d,%d,%d,%s,%d%n",
+					carTypeName(i),
+					2 + random.nextInt(6),
+					100 + 50 * random.nextInt(10),
+					20 + random.nextInt(180),
+					random.nextBoolean() ? "TRUE" : "FALSE",
+					counts[i]);
+		}
+		out.flush();
+	}
+
+	/**
+	 * Write the data files of the given number of companies to the given
+	 * directory, one file per company named after the company.
+	 *
+	 * @return the names of the generated companies
+	 */
+	public List<String> writeCompanies(File directory, int nbOfCompanies, int nbOfCarTypes, int nbOfCars)
+			throws IOException {
+		Files.createDirectories(directory.toPath());
+		List<String> names = new ArrayList<String>();
+		for (int i = 0; i < nbOfCompanies; i++) {
+			String name = companyName(i);
+			try (Writer writer = Files.newBufferedWriter(new File(directory, name + ".csv").toPath(),
+					StandardCharsets.UTF_8)) {
+				writeCompany(writer, nbOfCarTypes, nbOfCars);
+			}
+			names.add(name);
+		}
+		return names;
+	}
+
+	public static String companyName(int index) {
+		return "Company" + index;
+	}
+
+	public static String carTypeName(int index) {
+		return "Type" + index;
+	}
+}
@@ -0,0 +1,110 @@
+package ds.gae.loadtest;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import ds.gae.CarRentalModel;
+import ds.gae.entities.FleetData;
+
+/**
+ * Command line load test of the car rental model. Generates company data files,
+ * registers every data file in the data directory, generates or reads a trace
+ * and replays it with many threads.
+ * <p>
+ * Options, all optional: {@code --dir} data directory, {@code --companies},
+ * {@code --carTypes} and {@code --cars} per company to generate (no data is
+ * generated with {@code --companies 0}), {@code --renters},
+ * {@code --operations}, {@code --horizon} in days, {@code --quotes} and
+ * {@code --cancels} in percent of the operations, {@code --threads},
+ * {@code --seed}, {@code --trace} file to replay instead of generating one and
+ * {@code --record} file to save the replayed trace to.
+ * <p>
+ * Admission control stays active, so raise the carrental.admission.* system
+ * properties to measure the model itself rather than the rate limits.
+ */
+public final class LoadTest {
+
+	private LoadTest() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		Map<String, String> options = parseOptions(args);
+		long seed = Long.parseLong(option(options, "seed", "1"));
+		File directory = new File(option(options, "dir",
+				new File(System.getProperty("java.io.tmpdir"), "carrental-loadtest").getPath()));
+		int nbOfCompanies = Integer.parseInt(option(options, "companies", "10"));
+		int nbOfCarTypes = Integer.parseInt(option(options, "carTypes", "7"));
+		int nbOfCars = Integer.parseInt(option(options, "cars", "100"));
+
+		if (nbOfCompanies > 0) {
+			new FleetGenerator(seed).writeCompanies(directory, nbOfCompanies, nbOfCarTypes, nbOfCars);
+		}
+		CarRentalModel model = CarRentalModel.get();
+		List<String> companies = registerCompanies(model, directory);
+
+		List<WorkloadOperation> trace;
+		if (options.containsKey("trace")) {
+			trace = WorkloadTrace.read(new File(options.get("trace")));
+		} else {
+			trace = WorkloadTrace.generate(
+					seed,
+					companies,
+					nbOfCarTypes,
+					Integer.parseInt(option(options, "renters", "1000")),
+					Integer.parseInt(option(options, "operations", "100000")),
+					Integer.parseInt(option(options, "horizon", "365")),
+					Integer.parseInt(option(options, "quotes", "60")),
+					Integer.parseInt(option(options, "cancels", "10"))
+			);
+		}
+		if (options.containsKey("record")) {
+			WorkloadTrace.write(new File(options.get("record")), trace);
+		}
+
+		WorkloadReplayer replayer = new WorkloadReplayer(model, new Date());
+		WorkloadReport report = replayer.replay(trace, Integer.parseInt(option(options, "threads", "16")));
+		report.print(System.out);
+		System.out.println(model.getAdmissionController());
+	}
+
+	private static List<String> registerCompanies(CarRentalModel model, File directory) {
+		List<String> names = new ArrayList<String>();
+		File[] files = directory.listFiles((dir, file) -> file.endsWith(".csv"));
+		if (files == null) {
+			throw new IllegalArgumentException("No data directory " + directory);
+		}
+		for (File file : files) {
+			String name = file.getName().substring(0, file.getName().length() - ".csv".length());
+			model.registerCompany(name, () -> {
+				try (BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+					return FleetData.load(name, in);
+				}
+			});
+			names.add(name);
+		}
+		names.sort(null);
+		return names;
+	}
+
+	private static Map<String, String> parseOptions(String[] args) {
+		Map<String, String> options = new HashMap<String, String>();
+		for (int i = 0; i < args.length; i += 2) {
+			if (!args[i].startsWith("--") || i + 1 >= args.length) {
+				throw new IllegalArgumentException("Expected --option value, got " + args[i]);
+			}
+			options.put(args[i].substring(2), args[i + 1]);
+		}
+		return options;
+	}
+
+	private static String option(Map<String, String> options, String name, String defaultValue) {
+		return options.getOrDefault(name, defaultValue);
+	}
+}
@@ -0,0 +1,185 @@
+package ds.gae.loadtest;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import ds.gae.CarRentalModel;
+import ds.gae.ReservationException;
+import ds.gae.ReservationResult;
+import ds.gae.entities.CarType;
+import ds.gae.entities.FleetData;
+import ds.gae.entities.Quote;
+import ds.gae.entities.ReservationConstraints;
+
+/**
+ * Command line benchmark of quoting at peak hours, when most quote attempts
+ * fail because the requested car types are sold out. Books out every car of
+ * one company for a peak period, then quotes from many threads, mostly in the
+ * peak period, in three modes:
+ * <ul>
+ * <li>{@code fullStack} signals a failed quote the way quoting did before
+ * {@link ReservationResult}: it formats the constraints and throws a
+ * {@link ReservationException} with a full stack trace,</li>
+ * <li>{@code exceptions} goes through the throwing
+ * {@link CarRentalModel#createQuote(String, String, ReservationConstraints)},
+ * which throws a stackless exception,</li>
+ * <li>{@code results} goes through
+ * {@link CarRentalModel#tryCreateQuote(String, String, ReservationConstraints)}.</li>
+ * </ul>
+ * <p>
+ * Options, all optional: {@code --carTypes} and {@code --cars} of the company,
+ * {@code --soldOut} in percent of the quotes, {@code --threads},
+ * {@code --quotes} per thread and per round, {@code --rounds} of which the
+ * first half warms up.
+ * <p>
+ * Admission control and INFO logging are turned off, to measure the quote path
+ * itself.
+ */
+public final class QuoteBenchmark {
+
+	private static final long DAY = 24L * 60 * 60 * 1000;
+	private static final String COMPANY = "Peak";
+	// kept so the level set on it is not lost when it is garbage collected
+	private static final Logger modelLogger = Logger.getLogger("ds.gae");
+
+	private QuoteBenchmark() {
+	}
+
+	private interface Quoting {
+		boolean quote(CarRentalModel model, String renter, ReservationConstraints constraints);
+	}
+
+	public static void main(String[] args) throws Exception {
+		List<String> arguments = new ArrayList<String>();
+		for (String arg : args) {
+			arguments.add(arg);
+		}
+		int nbOfCarTypes = intOption(arguments, "carTypes", 7);
+		int nbOfCars = intOption(arguments, "cars", 100);
+		int soldOutPercent = intOption(arguments, "soldOut", 90);
+		int nbOfThreads = intOption(arguments, "threads", 8);
+		int nbOfQuotes = intOption(arguments, "quotes", 200_000);
+		int nbOfRounds = intOption(arguments, "rounds", 6);
+
+		for (String property : new String[] { "renterRate", "renterBurst", "companyRate", "companyBurst",
+				"maxInFlight" }) {
+			if (System.getProperty("carrental.admission." + property) == null) {
+				System.setProperty("carrental.admission." + property, Integer.toString(Integer.MAX_VALUE));
+			}
+		}
+		modelLogger.setLevel(Level.WARNING);
+
+		CarRentalModel model = CarRentalModel.get();
+		StringWriter data = new StringWriter();
+		new FleetGenerator(1).writeCompany(data, nbOfCarTypes, nbOfCars);
+		model.registerCompany(COMPANY,
+				FleetData.load(COMPANY, new BufferedReader(new StringReader(data.toString()))));
+		List<String> carTypes = new ArrayList<String>();
+		for (CarType type : model.getCarTypesOfCarRentalCompany(COMPANY)) {
+			carTypes.add(type.getName());
+		}
+		carTypes.sort(null);
+
+		// book out the peak period, days 10 to 20
+		Date peakStart = new Date(System.currentTimeMillis() + 10 * DAY);
+		Date peakEnd = new Date(peakStart.getTime() + 10 * DAY);
+		for (String carType : carTypes) {
+			ReservationConstraints constraints = new ReservationConstraints(peakStart, peakEnd, carType);
+			ReservationResult<Quote> quote;
+			while ((quote = model.tryCreateQuote(COMPANY, "booker", constraints)).isOk()) {
+				model.tryConfirmQuote(quote.get());
+			}
+		}
+
+		Quoting fullStack = (m, renter, constraints) -> {
+			try {
+				if (!m.tryCreateQuote(COMPANY, renter, constraints).isOk()) {
+					throw new ReservationException(
+							"<" + COMPANY + "> No cars available to satisfy the given constraints " + constraints.toString());
+				}
+				return true;
+			} catch (ReservationException e) {
+				return false;
+			}
+		};
+		Quoting exceptions = (m, renter, constraints) -> {
+			try {
+				m.createQuote(COMPANY, renter, constraints);
+				return true;
+			} catch (ReservationException e) {
+				return false;
+			}
+		};
+		Quoting results = (m, renter, constraints) -> m.tryCreateQuote(COMPANY, renter, constraints).isOk();
+
+		System.out.printf(Locale.ROOT, "%d car types, %d cars, %d%% sold out, %d threads, %d quotes per round%n",
+				carTypes.size(), nbOfCars, soldOutPercent, nbOfThreads, nbOfThreads * nbOfQuotes);
+		for (int round = 0; round < nbOfRounds; round++) {
+			String phase = round < nbOfRounds / 2 ? "warm-up" : "measure";
+			print(phase, "fullStack",
+					run(model, fullStack, carTypes, peakStart, soldOutPercent, nbOfThreads, nbOfQuotes));
+			print(phase, "exceptions",
+					run(model, exceptions, carTypes, peakStart, soldOutPercent, nbOfThreads, nbOfQuotes));
+			print(phase, "results",
+					run(model, results, carTypes, peakStart, soldOutPercent, nbOfThreads, nbOfQuotes));
+		}
+	}
+
+	private static long[] run(CarRentalModel model, Quoting quoting, List<String> carTypes, Date peakStart,
+			int soldOutPercent, int nbOfThreads, int nbOfQuotes) throws InterruptedException {
+		LongAdder failed = new LongAdder();
+		CountDownLatch done = new CountDownLatch(nbOfThreads);
+		long start = System.nanoTime();
+		for (int t = 0; t < nbOfThreads; t++) {
+			String renter = "renter-" + t;
+			Thread thread = new Thread(() -> {
+				try {
+					ThreadLocalRandom random = ThreadLocalRandom.current();
+					for (int i = 0; i < nbOfQuotes; i++) {
+						String carType = carTypes.get(random.nextInt(carTypes.size()));
+						// inside the peak period, or well after it
+						long day = random.nextInt(100) < soldOutPercent ? 10 + random.nextInt(8) : 40 + random.nextInt(300);
+						Date from = new Date(peakStart.getTime() + (day - 10) * DAY);
+						Date to = new Date(from.getTime() + 2 * DAY);
+						if (!quoting.quote(model, renter, new ReservationConstraints(from, to, carType))) {
+							failed.increment();
+						}
+					}
+				} finally {
+					done.countDown();
+				}
+			}, "quote-benchmark-" + t);
+			thread.start();
+		}
+		done.await();
+		return new long[] { System.nanoTime() - start, (long) nbOfThreads * nbOfQuotes, failed.sum() };
+	}
+
+	private static void print(String phase, String mode, long[] run) {
+		long nanos = run[0];
+		long quotes = run[1];
+		System.out.printf(Locale.ROOT, "%-8s %-10s %,12.0f quotes/s  %,8.0f ns/quote  %5.1f%% failed%n",
+				phase, mode, quotes * 1e9 / nanos, (double) nanos / quotes, 100.0 * run[2] / quotes);
+	}
+
+	private static int intOption(List<String> arguments, String name, int defaultValue) {
+		int index = arguments.indexOf("--" + name);
+		if (index < 0) {
+			return defaultValue;
+		}
+		if (index + 1 >= arguments.size()) {
+			throw new IllegalArgumentException("Expected --" + name + " value");
+		}
+		return Integer.parseInt(arguments.get(index + 1));
+	}
+}
@@ -0,0 +1,118 @@
+package ds.gae.loadtest;
+
+import java.util.Objects;
+
+/**
+ * One request of a workload trace. A trace file has one operation per line:
+ * {@code kind,renter,company,carType,startDay,days}, where days are counted
+ * from the start of the trace. Lines starting with # are comments.
+ */
+public class WorkloadOperation {
+
+	public enum Kind {
+		// quote only, like a customer comparing offers
+		QUOTE,
+		// quote and confirm
+		BOOK,
+		// cancel an earlier booking of the same renter
+		CANCEL
+	}
+
+	private Kind kind;
+	private String renter;
+	private String company;
+	private String carType;
+	private int startDay;
+	private int days;
+
+	/***************
+	 * CONSTRUCTOR *
+	 ***************/
+
+	public WorkloadOperation(Kind kind, String renter, String company, String carType, int startDay, int days) {
+		this.kind = kind;
+		this.renter = renter;
+		this.company = company;
+		this.carType = carType;
+		this.startDay = startDay;
+		this.days = days;
+	}
+
+	public Kind getKind() {
+		return kind;
+	}
+
+	public String getRenter() {
+		return renter;
+	}
+
+	public String getCompany() {
+		return company;
+	}
+
+	public String getCarType() {
+		return carType;
+	}
+
+	public int getStartDay() {
+		return startDay;
+	}
+
+	public int getDays() {
+		return days;
+	}
+
+	/***********
+	 * PARSING *
+	 ***********/
+
+	public static WorkloadOperation parse(String line) {
+		String[] fields = line.split(",", -1);
+		if (fields.length != 6) {
+			throw new IllegalArgumentException("Illegal trace line: " + line);
+		}
+		return new WorkloadOperation(
+				Kind.valueOf(fields[0]),
+				fields[1],
+				fields[2],
+				fields[3],
+				Integer.parseInt(fields[4]),
+				Integer.parseInt(fields[5])
+		);
+	}
+
+	public String toLine() {
+		return kind + "," + renter + "," + company + "," + carType + "," + startDay + "," + days;
+	}
+
+	/*************
+	 * TO STRING *
+	 *************/
+
+	@Override
+	public String toString() {
+		return toLine();
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(kind, renter, company, carType, startDay, days);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (obj == null || getClass() != obj.getClass()) {
+			return false;
+		}
+		WorkloadOperation other = (WorkloadOperation) obj;
+		return kind == other.kind
+				&& Objects.equals(renter, other.renter)
+				&& Objects.equals(company, other.company)
+				&& Objects.equals(carType, other.carType)
+				&& startDay == other.startDay
+				&& days == other.days;
+	}
+}
@@ -0,0 +1,127 @@
+package ds.gae.loadtest;
+
+import java.util.Date;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import ds.gae.AdmissionRejectedException;
+import ds.gae.CarRentalModel;
+import ds.gae.ReservationException;
+import ds.gae.entities.Quote;
+import ds.gae.entities.Reservation;
+import ds.gae.entities.ReservationConstraints;
+
+/**
+ * Replays a workload trace against a car rental model from many threads, as
+ * fast as the model allows, and measures the latency and outcome of every
+ * operation.
+ */
+public class WorkloadReplayer {
+
+	private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+	private final CarRentalModel model;
+	private final long firstDay;
+	// confirmed reservations per renter, for the cancellations in the trace
+	private final ConcurrentMap<String, Deque<Reservation>> reservations = new ConcurrentHashMap<String, Deque<Reservation>>();
+
+	/***************
+	 * CONSTRUCTOR *
+	 ***************/
+
+	/**
+	 * @param model    the model to send the operations to
+	 * @param firstDay day 0 of the trace
+	 */
+	public WorkloadReplayer(CarRentalModel model, Date firstDay) {
+		this.model = model;
+		this.firstDay = firstDay.getTime();
+	}
+
+	/**
+	 * Replay the given trace with the given number of threads. Every thread takes
+	 * the next operation of the trace until the trace is exhausted.
+	 *
+	 * @return the measurements of the replay
+	 */
+	public WorkloadReport replay(List<WorkloadOperation> trace, int nbOfThreads) throws InterruptedException {
+		WorkloadReport report = new WorkloadReport(trace, nbOfThreads);
+		AtomicInteger next = new AtomicInteger();
+		CountDownLatch done = new CountDownLatch(nbOfThreads);
+		long start = System.nanoTime();
+		for (int t = 0; t < nbOfThreads; t++) {
+			Thread thread = new Thread(() -> {
+				try {
+					for (int i = next.getAndIncrement(); i < trace.size(); i = next.getAndIncrement()) {
+						long before = System.nanoTime();
+						WorkloadReport.Outcome outcome = execute(trace.get(i), report);
+						report.record(i, System.nanoTime() - before, outcome);
+					}
+				} finally {
+					done.countDown();
+				}
+			}, "workload-replayer-" + t);
+			thread.start();
+		}
+		done.await();
+		report.setElapsedNanos(System.nanoTime() - start);
+		return report;
+	}
+
+	private WorkloadReport.Outcome execute(WorkloadOperation operation, WorkloadReport report) {
+		try {
+			switch (operation.getKind()) {
+			case QUOTE:
+				model.createQuote(operation.getCompany(), operation.getRenter(), constraints(operation));
+				return WorkloadReport.Outcome.OK;
+			case BOOK:
+				return book(operation);
+			case CANCEL:
+				Deque<Reservation> booked = reservations.get(operation.getRenter());
+				Reservation reservation = booked == null ? null : booked.pollLast();
+				if (reservation == null) {
+					return WorkloadReport.Outcome.SKIPPED;
+				}
+				model.cancelReservation(reservation);
+				return WorkloadReport.Outcome.OK;
+			default:
+				throw new IllegalArgumentException("Unknown operation " + operation.getKind());
+			}
+		} catch (AdmissionRejectedException e) {
+			return WorkloadReport.Outcome.REJECTED;
+		} catch (ReservationException e) {
+			return WorkloadReport.Outcome.SOLD_OUT;
+		} catch (RuntimeException e) {
+			report.recordError(e);
+			return WorkloadReport.Outcome.ERROR;
+		}
+	}
+
+	private WorkloadReport.Outcome book(WorkloadOperation operation) throws ReservationException {
+		Quote quote = model.createQuote(operation.getCompany(), operation.getRenter(), constraints(operation));
+		Reservation reservation;
+		try {
+			reservation = model.confirmQuote(quote);
+		} catch (AdmissionRejectedException e) {
+			throw e;
+		} catch (ReservationException e) {
+			// another thread took the last car between quote and confirm
+			return WorkloadReport.Outcome.CONFLICT;
+		}
+		reservations.computeIfAbsent(operation.getRenter(), renter -> new ConcurrentLinkedDeque<Reservation>())
+				.add(reservation);
+		return WorkloadReport.Outcome.OK;
+	}
+
+	private ReservationConstraints constraints(WorkloadOperation operation) {
+		Date start = new Date(firstDay + operation.getStartDay() * DAY);
+		Date end = new Date(start.getTime() + operation.getDays() * DAY);
+		return new ReservationConstraints(start, end, operation.getCarType());
+	}
+}
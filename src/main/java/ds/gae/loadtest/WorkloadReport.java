@@ -0,0 +1,179 @@
+package ds.gae.loadtest;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import ds.gae.loadtest.WorkloadOperation.Kind;
+
+/**
+ * Latency and outcome of every operation of a replayed trace, and the
+ * throughput, latency percentiles and conflict rate derived from them.
+ */
+public class WorkloadReport {
+
+	public enum Outcome {
+		OK,
+		// no car available when quoting
+		SOLD_OUT,
+		// quote succeeded but the confirmation failed
+		CONFLICT,
+		// shed by admission control
+		REJECTED,
+		// cancellation without an earlier booking to cancel
+		SKIPPED,
+		// unexpected exception, see the error counts and the first error
+		ERROR
+	}
+
+	private static final double[] PERCENTILES = { 50, 90, 99, 99.9 };
+
+	private final List<WorkloadOperation> trace;
+	private final int nbOfThreads;
+	// indexed by position in the trace, each written by exactly one thread
+	private final long[] latencies;
+	private final Outcome[] outcomes;
+	// errors per exception class, and the first one to show what went wrong
+	private final ConcurrentMap<String, LongAdder> errors = new ConcurrentHashMap<String, LongAdder>();
+	private final AtomicReference<Throwable> firstError = new AtomicReference<Throwable>();
+	private long elapsedNanos;
+
+	/***************
+	 * CONSTRUCTOR *
+	 ***************/
+
+	WorkloadReport(List<WorkloadOperation> trace, int nbOfThreads) {
+		this.trace = trace;
+		this.nbOfThreads = nbOfThreads;
+		this.latencies = new long[trace.size()];
+		this.outcomes = new Outcome[trace.size()];
+	}
+
+	void record(int index, long latencyNanos, Outcome outcome) {
+		latencies[index] = latencyNanos;
+		outcomes[index] = outcome;
+	}
+
+	void recordError(Throwable error) {
+		errors.computeIfAbsent(error.getClass().getName(), name -> new LongAdder()).increment();
+		firstError.compareAndSet(null, error);
+	}
+
+	void setElapsedNanos(long elapsedNanos) {
+		this.elapsedNanos = elapsedNanos;
+	}
+
+	/***********
+	 * RESULTS *
+	 ***********/
+
+	public double getThroughput() {
+		return trace.size() / (elapsedNanos / 1e9);
+	}
+
+	public int count(Kind kind, Outcome outcome) {
+		int count = 0;
+		for (int i = 0; i < outcomes.length; i++) {
+			if (trace.get(i).getKind() == kind && outcomes[i] == outcome) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return the fraction of bookings whose quote succeeded but whose
+	 *         confirmation failed
+	 */
+	public double getConflictRate() {
+		int conflicts = count(Kind.BOOK, Outcome.CONFLICT);
+		int confirmed = count(Kind.BOOK, Outcome.OK);
+		return conflicts + confirmed == 0 ? 0 : (double) conflicts / (conflicts + confirmed);
+	}
+
+	/**
+	 * @return the number of errors per exception class
+	 */
+	public Map<String, Long> getErrorCounts() {
+		Map<String, Long> out = new TreeMap<String, Long>();
+		for (Map.Entry<String, LongAdder> entry : errors.entrySet()) {
+			out.put(entry.getKey(), entry.getValue().sum());
+		}
+		return out;
+	}
+
+	/**
+	 * @return the first error, or null if there were none
+	 */
+	public Throwable getFirstError() {
+		return firstError.get();
+	}
+
+	/**
+	 * @return the given percentile of the latency of the given kind of
+	 *         operation, in microseconds
+	 */
+	public double getLatencyPercentile(Kind kind, double percentile) {
+		long[] sorted = latencies(kind);
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+		return sorted[Math.max(0, index)] / 1e3;
+	}
+
+	private long[] latencies(Kind kind) {
+		long[] out = new long[latencies.length];
+		int size = 0;
+		for (int i = 0; i < latencies.length; i++) {
+			if (trace.get(i).getKind() == kind) {
+				out[size++] = latencies[i];
+			}
+		}
+		out = Arrays.copyOf(out, size);
+		Arrays.sort(out);
+		return out;
+	}
+
+	/*********
+	 * PRINT *
+	 *********/
+
+	public void print(PrintStream out) {
+		out.printf("%d operations on %d threads in %.2f s: %.0f ops/s%n",
+				trace.size(), nbOfThreads, TimeUnit.NANOSECONDS.toMillis(elapsedNanos) / 1e3, getThroughput());
+		out.printf("conflict rate: %.2f%%%n", 100 * getConflictRate());
+		for (Kind kind : Kind.values()) {
+			Map<Outcome, Integer> counts = new EnumMap<Outcome, Integer>(Outcome.class);
+			for (Outcome outcome : Outcome.values()) {
+				int count = count(kind, outcome);
+				if (count > 0) {
+					counts.put(outcome, count);
+				}
+			}
+			if (counts.isEmpty()) {
+				continue;
+			}
+			out.printf("%-7s %s%n", kind, counts);
+			out.print("        latency (us)");
+			for (double percentile : PERCENTILES) {
+				out.printf("  p%s: %.1f", percentile % 1 == 0 ? String.valueOf((int) percentile) : percentile,
+						getLatencyPercentile(kind, percentile));
+			}
+			out.println();
+		}
+		Throwable error = getFirstError();
+		if (error != null) {
+			out.printf("errors: %s%nfirst error: ", getErrorCounts());
+			error.printStackTrace(out);
+		}
+	}
+}
@@ -0,0 +1,89 @@
+package ds.gae.loadtest;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import ds.gae.loadtest.WorkloadOperation.Kind;
+
+/**
+ * Generates, reads and writes traces of workload operations.
+ */
+public final class WorkloadTrace {
+
+	private static final int MAX_RENTAL_DAYS = 14;
+
+	private WorkloadTrace() {
+	}
+
+	/**
+	 * Generate a synthetic trace. A few renters make most of the requests, as in
+	 * production, while companies, car types and dates are spread evenly.
+	 *
+	 * @param seed           seed of the random generator
+	 * @param companies      names of the companies to send requests to
+	 * @param nbOfCarTypes   number of car types per company, named by
+	 *                       {@link FleetGenerator#carTypeName(int)}
+	 * @param nbOfRenters    number of distinct renters
+	 * @param nbOfOperations length of the trace
+	 * @param horizonDays    number of days over which rentals start
+	 * @param quotePercent   percentage of quotes that are not confirmed
+	 * @param cancelPercent  percentage of cancellations
+	 */
+	public static List<WorkloadOperation> generate(
+			long seed,
+			List<String> companies,
+			int nbOfCarTypes,
+			int nbOfRenters,
+			int nbOfOperations,
+			int horizonDays,
+			int quotePercent,
+			int cancelPercent) {
+		Random random = new Random(seed);
+		List<WorkloadOperation> trace = new ArrayList<WorkloadOperation>(nbOfOperations);
+		for (int i = 0; i < nbOfOperations; i++) {
+			int roll = random.nextInt(100);
+			Kind kind = roll < quotePercent ? Kind.QUOTE : roll < quotePercent + cancelPercent ? Kind.CANCEL : Kind.BOOK;
+			double skew = random.nextDouble();
+			trace.add(new WorkloadOperation(
+					kind,
+					"Renter" + (int) (nbOfRenters * skew * skew),
+					companies.get(random.nextInt(companies.size())),
+					FleetGenerator.carTypeName(random.nextInt(nbOfCarTypes)),
+					random.nextInt(horizonDays),
+					1 + random.nextInt(MAX_RENTAL_DAYS)
+			));
+		}
+		return trace;
+	}
+
+	public static List<WorkloadOperation> read(File file) throws IOException {
+		List<WorkloadOperation> trace = new ArrayList<WorkloadOperation>();
+		try (BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+			String line;
+			while ((line = in.readLine()) != null) {
+				if (!line.isEmpty() && !line.startsWith("#")) {
+					trace.add(WorkloadOperation.parse(line));
+				}
+			}
+		}
+		return trace;
+	}
+
+	public static void write(File file, List<WorkloadOperation> trace) throws IOException {
+		try (BufferedWriter out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8)) {
+			out.write("#kind,renter,company,carType,startDay,days");
+			out.newLine();
+			for (WorkloadOperation operation : trace) {
+				out.write(operation.toLine());
+				out.newLine();
+			}
+		}
+	}
+}
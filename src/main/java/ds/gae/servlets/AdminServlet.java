@@ -0,0 +1,126 @@
+package ds.gae.servlets;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import ds.gae.CarRentalModel;
+import ds.gae.FleetUnavailableException;
+import ds.gae.entities.Car;
+import ds.gae.entities.CarType;
+import ds.gae.entities.FleetData;
+import ds.gae.view.JsonWriter;
+
+/**
+ * Changes the catalog while serving. All requests are POSTs:
+ * <ul>
+ * <li>/admin/companies?name=... with the company data file, in the format of
+ * hertz.csv, as request body</li>
+ * <li>/admin/carTypes?company=...&amp;name=...&amp;seats=...&amp;trunk=...&amp;price=...&amp;smoking=...</li>
+ * <li>/admin/cars?company=...&amp;carType=...&amp;count=...</li>
+ * <li>/admin/retireCar?company=...&amp;id=...</li>
+ * <li>/admin/retireCarType?company=...&amp;name=...</li>
+ * </ul>
+ */
+@SuppressWarnings("serial")
+public class AdminServlet extends HttpServlet {
+
+	private static Logger logger = Logger.getLogger(AdminServlet.class.getName());
+
+	@Override
+	protected void doPost(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+		String path = req.getPathInfo() == null ? "" : req.getPathInfo();
+		CarRentalModel model = CarRentalModel.get();
+		try {
+			switch (path) {
+			case "/companies":
+				String name = required(req, "name");
+				Set<Car> cars = FleetData.load(name, req.getReader());
+				if (cars.isEmpty()) {
+					throw new IllegalArgumentException("No cars in the data of car rental company " + name);
+				}
+				if (!model.registerCompany(name, cars)) {
+					resp.sendError(HttpServletResponse.SC_CONFLICT, "Car rental company " + name + " already exists");
+					return;
+				}
+				break;
+			case "/carTypes":
+				model.addCarType(company(req), new CarType(
+						required(req, "name"),
+						Integer.parseInt(required(req, "seats")),
+						Float.parseFloat(required(req, "trunk")),
+						Double.parseDouble(required(req, "price")),
+						Boolean.parseBoolean(required(req, "smoking"))));
+				break;
+			case "/cars":
+				List<Integer> ids = model.addCars(company(req), required(req, "carType"),
+						Integer.parseInt(required(req, "count")));
+				resp.setContentType("application/json");
+				resp.setCharacterEncoding("UTF-8");
+				JsonWriter json = new JsonWriter(resp.getWriter());
+				json.beginObject().name("ids").beginArray();
+				for (int id : ids) {
+					json.value(id);
+				}
+				json.endArray().endObject().flush();
+				return;
+			case "/retireCar":
+				model.retireCar(company(req), Integer.parseInt(required(req, "id")));
+				break;
+			case "/retireCarType":
+				model.retireCarType(company(req), required(req, "name"));
+				break;
+			default:
+				resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+				return;
+			}
+			resp.setStatus(HttpServletResponse.SC_NO_CONTENT);
+		} catch (UnknownCompanyException e) {
+			resp.sendError(HttpServletResponse.SC_NOT_FOUND, e.getMessage());
+		} catch (FleetUnavailableException e) {
+			// logged by the model
+			resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, e.getMessage());
+		} catch (IllegalStateException e) {
+			logger.log(Level.WARNING, e.getMessage());
+			resp.sendError(HttpServletResponse.SC_CONFLICT, e.getMessage());
+		} catch (IllegalArgumentException | NoSuchElementException e) {
+			// also covers malformed numbers and company data files
+			logger.log(Level.WARNING, e.getMessage());
+			resp.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+		}
+	}
+
+	// unknown companies are answered with 404, as in the JSON API
+	private static String company(HttpServletRequest req) {
+		String company = required(req, "company");
+		if (!CarRentalModel.get().getAllRentalCompanyNames().contains(company)) {
+			throw new UnknownCompanyException("No car rental company " + company);
+		}
+		return company;
+	}
+
+	private static String required(HttpServletRequest req, String name) {
+		String value = req.getParameter(name);
+		if (value == null || value.isEmpty()) {
+			throw new IllegalArgumentException("Missing parameter " + name);
+		}
+		return value;
+	}
+
+	private static class UnknownCompanyException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		UnknownCompanyException(String message) {
+			super(message);
+		}
+	}
+}
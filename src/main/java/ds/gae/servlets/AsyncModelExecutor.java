@@ -0,0 +1,363 @@
+package ds.gae.servlets;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.AsyncEvent;
+import javax.servlet.AsyncListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+/**
+ * Runs the work of asynchronous servlets on a dedicated, bounded thread pool,
+ * so container threads go back to the pool while the car rental model is busy.
+ * When all threads are busy and the queue is full, requests are answered with
+ * 503 Service Unavailable right away instead of piling up.
+ */
+public final class AsyncModelExecutor {
+
+	private static Logger logger = Logger.getLogger(AsyncModelExecutor.class.getName());
+
+	private static final int THREADS = Integer.getInteger("carrental.executor.threads",
+			2 * Runtime.getRuntime().availableProcessors());
+	private static final int QUEUE_SIZE = Integer.getInteger("carrental.executor.queueSize", 100);
+	private static final long TIMEOUT_MILLIS = Long.getLong("carrental.executor.timeoutMillis", 30_000L);
+
+	private static final ThreadPoolExecutor executor = new ThreadPoolExecutor(
+			THREADS,
+			THREADS,
+			60, TimeUnit.SECONDS,
+			new ArrayBlockingQueue<Runnable>(QUEUE_SIZE),
+			new DaemonThreadFactory(),
+			new ThreadPoolExecutor.AbortPolicy());
+
+	/**
+	 * The work of a request, run on a thread of the executor. Once the request
+	 * timed out, the response given to the task ignores all changes.
+	 */
+	@FunctionalInterface
+	public interface Task {
+		void run(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException;
+	}
+
+	private AsyncModelExecutor() {
+	}
+
+	/**
+	 * Put the request in asynchronous mode and run the given task on the
+	 * executor. The request is completed when the task returns, fails or times
+	 * out. The servlet must be mapped with async-supported set to true.
+	 *
+	 * @param req  the request
+	 * @param resp the response
+	 * @param task the work to do for the request
+	 */
+	public static void execute(HttpServletRequest req, HttpServletResponse resp, Task task) throws IOException {
+		final AsyncContext context = req.startAsync(req, resp);
+		// set by whoever answers the request first: the task or the timeout
+		final AtomicBoolean completed = new AtomicBoolean();
+		context.setTimeout(TIMEOUT_MILLIS);
+		context.addListener(new AsyncListener() {
+			@Override
+			public void onTimeout(AsyncEvent event) throws IOException {
+				if (completed.compareAndSet(false, true)) {
+					logger.log(Level.WARNING, "Request timed out: {0}", req.getRequestURI());
+					resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+					context.complete();
+				}
+			}
+
+			@Override
+			public void onError(AsyncEvent event) {
+				completed.set(true);
+			}
+
+			@Override
+			public void onComplete(AsyncEvent event) {
+			}
+
+			@Override
+			public void onStartAsync(AsyncEvent event) {
+			}
+		});
+
+		try {
+			executor.execute(() -> {
+				if (completed.get()) {
+					// timed out while queued, nobody is waiting for the answer anymore
+					logger.log(Level.WARNING, "Skipping timed out request {0}", req.getRequestURI());
+					return;
+				}
+				GuardedResponse guarded = new GuardedResponse(resp, completed);
+				try {
+					task.run(req, guarded);
+				} catch (ServletException | IOException | RuntimeException e) {
+					logger.log(Level.SEVERE, e.getMessage(), e);
+					if (guarded.claim() && !resp.isCommitted()) {
+						sendError(resp, HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+					}
+				} finally {
+					if (guarded.claim()) {
+						context.complete();
+					}
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			logger.log(Level.WARNING, "Executor saturated, rejecting {0}", req.getRequestURI());
+			if (completed.compareAndSet(false, true)) {
+				resp.setHeader("Retry-After", "1");
+				resp.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+				context.complete();
+			}
+		}
+	}
+
+	private static void sendError(HttpServletResponse resp, int status) {
+		try {
+			resp.sendError(status);
+		} catch (IOException e) {
+			logger.log(Level.WARNING, "Could not send error", e);
+		}
+	}
+
+	/**
+	 * Response handed to a task. The first change to the response claims it for
+	 * the task, unless the timeout answered the request already. After a
+	 * timeout, all changes are dropped, since the container may have recycled
+	 * the response. Every method that changes the response goes through
+	 * {@link #claim()}.
+	 */
+	private static class GuardedResponse extends HttpServletResponseWrapper {
+
+		private final AtomicBoolean completed;
+		// only used by the thread running the task
+		private boolean claimed;
+
+		GuardedResponse(HttpServletResponse response, AtomicBoolean completed) {
+			super(response);
+			this.completed = completed;
+		}
+
+		boolean claim() {
+			if (!claimed) {
+				claimed = completed.compareAndSet(false, true);
+			}
+			return claimed;
+		}
+
+		@Override
+		public void sendRedirect(String location) throws IOException {
+			if (claim()) {
+				super.sendRedirect(location);
+			}
+		}
+
+		@Override
+		public void sendError(int sc, String msg) throws IOException {
+			if (claim()) {
+				super.sendError(sc, msg);
+			}
+		}
+
+		@Override
+		public void sendError(int sc) throws IOException {
+			if (claim()) {
+				super.sendError(sc);
+			}
+		}
+
+		@Override
+		public void setStatus(int sc) {
+			if (claim()) {
+				super.setStatus(sc);
+			}
+		}
+
+		@Override
+		public void setHeader(String name, String value) {
+			if (claim()) {
+				super.setHeader(name, value);
+			}
+		}
+
+		@Override
+		public void addHeader(String name, String value) {
+			if (claim()) {
+				super.addHeader(name, value);
+			}
+		}
+
+		@Override
+		public void setContentType(String type) {
+			if (claim()) {
+				super.setContentType(type);
+			}
+		}
+
+		@Override
+		public void setCharacterEncoding(String charset) {
+			if (claim()) {
+				super.setCharacterEncoding(charset);
+			}
+		}
+
+		@Override
+		@Deprecated
+		public void setStatus(int sc, String sm) {
+			if (claim()) {
+				super.setStatus(sc, sm);
+			}
+		}
+
+		@Override
+		public void addCookie(Cookie cookie) {
+			if (claim()) {
+				super.addCookie(cookie);
+			}
+		}
+
+		@Override
+		public void setDateHeader(String name, long date) {
+			if (claim()) {
+				super.setDateHeader(name, date);
+			}
+		}
+
+		@Override
+		public void addDateHeader(String name, long date) {
+			if (claim()) {
+				super.addDateHeader(name, date);
+			}
+		}
+
+		@Override
+		public void setIntHeader(String name, int value) {
+			if (claim()) {
+				super.setIntHeader(name, value);
+			}
+		}
+
+		@Override
+		public void addIntHeader(String name, int value) {
+			if (claim()) {
+				super.addIntHeader(name, value);
+			}
+		}
+
+		@Override
+		public void setContentLength(int len) {
+			if (claim()) {
+				super.setContentLength(len);
+			}
+		}
+
+		@Override
+		public void setContentLengthLong(long len) {
+			if (claim()) {
+				super.setContentLengthLong(len);
+			}
+		}
+
+		@Override
+		public void setLocale(Locale loc) {
+			if (claim()) {
+				super.setLocale(loc);
+			}
+		}
+
+		@Override
+		public void setBufferSize(int size) {
+			if (claim()) {
+				super.setBufferSize(size);
+			}
+		}
+
+		@Override
+		public void reset() {
+			if (claim()) {
+				super.reset();
+			}
+		}
+
+		@Override
+		public void resetBuffer() {
+			if (claim()) {
+				super.resetBuffer();
+			}
+		}
+
+		@Override
+		public void flushBuffer() throws IOException {
+			if (claim()) {
+				super.flushBuffer();
+			}
+		}
+
+		@Override
+		public PrintWriter getWriter() throws IOException {
+			return claim() ? super.getWriter() : new PrintWriter(new StringWriter());
+		}
+
+		@Override
+		public ServletOutputStream getOutputStream() throws IOException {
+			if (claim()) {
+				return super.getOutputStream();
+			}
+			return new ServletOutputStream() {
+				@Override
+				public void write(int b) {
+				}
+
+				@Override
+				public boolean isReady() {
+					return true;
+				}
+
+				@Override
+				public void setWriteListener(WriteListener writeListener) {
+				}
+			};
+		}
+	}
+
+	/***********
+	 * METRICS *
+	 ***********/
+
+	public static int getActiveCount() {
+		return executor.getActiveCount();
+	}
+
+	public static int getQueuedCount() {
+		return executor.getQueue().size();
+	}
+
+	private static class DaemonThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable runnable) {
+			Thread thread = new Thread(runnable, "car-rental-model-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package ds.gae.servlets;
+
+import java.io.IOException;
+
+import javax.servlet.Filter;
+import javax.servlet.FilterChain;
+import javax.servlet.FilterConfig;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import ds.gae.CarRentalModel;
+import ds.gae.view.ETags;
+
+/**
+ * Answers repeated requests for the persist test page with 304 Not Modified as
+ * long as none of the car rental companies and none of the reservations of the
+ * renter changed, without rendering the page.
+ */
+public class PersistTestETagFilter implements Filter {
+
+	@Override
+	public void init(FilterConfig filterConfig) throws ServletException {
+	}
+
+	@Override
+	public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
+			throws IOException, ServletException {
+		HttpServletRequest req = (HttpServletRequest) request;
+		HttpServletResponse resp = (HttpServletResponse) response;
+
+		if (!"GET".equals(req.getMethod())) {
+			chain.doFilter(request, response);
+			return;
+		}
+
+		HttpSession session = req.getSession(false);
+		String renter = session == null ? null : (String) session.getAttribute("renter");
+		CarRentalModel model = CarRentalModel.get();
+		// versions never decrease, so their sum changes whenever one of them does
+		String etag = ETags.of(
+				renter,
+				model.getAllRentalCompanyNames().size(),
+				model.getAllCompaniesVersion(),
+				renter == null ? 0 : model.getRenterVersion(renter)
+		);
+		if (!ETags.notModified(req, resp, etag)) {
+			chain.doFilter(request, response);
+		}
+	}
+
+	@Override
+	public void destroy() {
+	}
+}
@@ -10,6 +10,7 @@ import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import ds.gae.AdmissionRejectedException;
 import ds.gae.CarRentalModel;
 import ds.gae.ReservationException;
 import ds.gae.entities.Quote;
@@ -29,6 +30,16 @@ public class PersistTestServlet extends HttpServlet {
 
 		req.getSession().setAttribute("renter", userName);
 
+		// retries of the same request carry the same key and are confirmed only once
+		String idempotencyKey = req.getHeader("Idempotency-Key");
+
+		// quoting can take a while, so free the container thread in the meantime
+		AsyncModelExecutor.execute(req, resp,
+				(request, response) -> persistTest(response, companyName, userName, idempotencyKey));
+	}
+
+	private void persistTest(HttpServletResponse resp, String companyName, String userName, String idempotencyKey)
+			throws IOException {
 		try {
 
 			if (CarRentalModel.get().getReservations(userName).size() == 0) {
@@ -37,13 +48,21 @@ public class PersistTestServlet extends HttpServlet {
 						Tools.DATE_FORMAT.parse("14.12.2019"), "Compact");
 
 				final Quote q = CarRentalModel.get().createQuote(companyName, userName, c);
-				CarRentalModel.get().confirmQuote(q);
+				if (idempotencyKey == null) {
+					CarRentalModel.get().confirmQuote(q);
+				} else {
+					CarRentalModel.get().confirmQuote(q, idempotencyKey);
+				}
 			}
 
 			resp.sendRedirect(JSPSite.PERSIST_TEST.url());
 		} catch (ParseException e) {
 			logger.log(Level.SEVERE, e.getMessage(), e);
 			resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+		} catch (AdmissionRejectedException e) {
+			logger.log(Level.WARNING, e.getMessage());
+			resp.setHeader("Retry-After", "1");
+			resp.sendError(429, e.getMessage());
 		} catch (ReservationException e) {
 			logger.log(Level.SEVERE, e.getMessage(), e);
 			resp.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
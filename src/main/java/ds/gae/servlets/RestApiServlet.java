@@ -0,0 +1,359 @@
+package ds.gae.servlets;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpSession;
+
+import ds.gae.CarRentalModel;
+import ds.gae.entities.CarType;
+import ds.gae.entities.Reservation;
+import ds.gae.entities.ReservationAlternatives;
+import ds.gae.entities.ReservationConstraints;
+import ds.gae.entities.ReservationKey;
+import ds.gae.view.ETags;
+import ds.gae.view.JsonWriter;
+
+/**
+ * Read-only JSON API on the car rental model.
+ * <ul>
+ * <li>GET /api/reservations, of the renter logged in to the session</li>
+ * <li>GET /api/carTypes?company=...</li>
+ * <li>GET /api/cars?company=...&amp;carType=...</li>
+ * <li>GET /api/alternatives?company=...&amp;carType=...&amp;start=...&amp;end=...&amp;k=...</li>
+ * </ul>
+ * Lists are paged: a response holds at most {@code limit} items and a
+ * {@code next} cursor to pass as {@code cursor} for the following page. The
+ * optional {@code fields} parameter is a comma separated list of the fields to
+ * include in each item. Dates are ISO-8601 instants.
+ */
+@SuppressWarnings("serial")
+public class RestApiServlet extends HttpServlet {
+
+	private static final int DEFAULT_LIMIT = 50;
+	private static final int MAX_LIMIT = 500;
+	private static final int DEFAULT_ALTERNATIVES = 5;
+
+	@Override
+	protected void doGet(HttpServletRequest req, HttpServletResponse resp) throws ServletException, IOException {
+		String path = req.getPathInfo() == null ? "" : req.getPathInfo();
+		try {
+			switch (path) {
+			case "/reservations":
+				getReservations(req, resp);
+				break;
+			case "/carTypes":
+				getCarTypes(req, resp);
+				break;
+			case "/cars":
+				getCars(req, resp);
+				break;
+			case "/alternatives":
+				getAlternatives(req, resp);
+				break;
+			default:
+				resp.sendError(HttpServletResponse.SC_NOT_FOUND);
+			}
+		} catch (IllegalArgumentException e) {
+			resp.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+		}
+	}
+
+	/****************
+	 * RESERVATIONS *
+	 ****************/
+
+	private void getReservations(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+		// only the renter of the session may see their reservations, as on the
+		// reservations page
+		HttpSession session = req.getSession(false);
+		String renter = session == null ? null : (String) session.getAttribute("renter");
+		if (renter == null) {
+			resp.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Not logged in");
+			return;
+		}
+		String requested = req.getParameter("renter");
+		if (requested != null && !requested.equals(renter)) {
+			resp.sendError(HttpServletResponse.SC_FORBIDDEN, "Reservations of other renters are not visible");
+			return;
+		}
+		CarRentalModel model = CarRentalModel.get();
+		if (ETags.notModified(req, resp, ETags.of(renter, model.getRenterVersion(renter)))) {
+			return;
+		}
+		Fields fields = new Fields(req);
+		int limit = limit(req);
+		// the cursor is the key of the last reservation of the previous page, which
+		// keeps its place when reservations are archived
+		ReservationKey after = decodeReservationCursor(req);
+
+		// fetch one extra reservation to know whether there is a next page
+		List<Reservation> page = model.getReservations(renter, after, limit + 1);
+
+		JsonWriter json = startJson(resp);
+		json.beginObject().name("items").beginArray();
+		for (Reservation r : page.subList(0, Math.min(limit, page.size()))) {
+			json.beginObject();
+			if (fields.includes("rentalCompany")) {
+				json.name("rentalCompany").value(r.getRentalCompany());
+			}
+			if (fields.includes("carType")) {
+				json.name("carType").value(r.getCarType());
+			}
+			if (fields.includes("carId")) {
+				json.name("carId").value(r.getCarId());
+			}
+			if (fields.includes("startDate")) {
+				json.name("startDate").value(r.getStartDate().toInstant().toString());
+			}
+			if (fields.includes("endDate")) {
+				json.name("endDate").value(r.getEndDate().toInstant().toString());
+			}
+			if (fields.includes("rentalPrice")) {
+				json.name("rentalPrice").value(r.getRentalPrice());
+			}
+			json.endObject();
+		}
+		json.endArray();
+		json.name("next").value(page.size() > limit ? encodeReservationCursor(page.get(limit - 1)) : null);
+		json.endObject().flush();
+	}
+
+	/*************
+	 * CAR TYPES *
+	 *************/
+
+	private void getCarTypes(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+		String company = requiredCompany(req, resp);
+		if (company == null || ETags.notModified(req, resp, ETags.of(CarRentalModel.get().getCompanyVersion(company)))) {
+			return;
+		}
+		Fields fields = new Fields(req);
+
+		JsonWriter json = startJson(resp);
+		json.beginObject().name("items").beginArray();
+		for (CarType t : CarRentalModel.get().getCarTypesOfCarRentalCompany(company)) {
+			json.beginObject();
+			if (fields.includes("name")) {
+				json.name("name").value(t.getName());
+			}
+			if (fields.includes("nbOfSeats")) {
+				json.name("nbOfSeats").value(t.getNbOfSeats());
+			}
+			if (fields.includes("trunkSpace")) {
+				json.name("trunkSpace").value(t.getTrunkSpace());
+			}
+			if (fields.includes("rentalPricePerDay")) {
+				json.name("rentalPricePerDay").value(t.getRentalPricePerDay());
+			}
+			if (fields.includes("smokingAllowed")) {
+				json.name("smokingAllowed").value(t.isSmokingAllowed());
+			}
+			json.endObject();
+		}
+		json.endArray().endObject().flush();
+	}
+
+	/********
+	 * CARS *
+	 ********/
+
+	private void getCars(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+		String company = requiredCompany(req, resp);
+		if (company == null) {
+			return;
+		}
+		String carTypeName = required(req, "carType");
+		CarRentalModel model = CarRentalModel.get();
+		if (ETags.notModified(req, resp, ETags.of(model.getCompanyVersion(company)))) {
+			return;
+		}
+		CarType carType = null;
+		for (CarType t : model.getCarTypesOfCarRentalCompany(company)) {
+			if (t.getName().equals(carTypeName)) {
+				carType = t;
+			}
+		}
+		if (carType == null) {
+			resp.sendError(HttpServletResponse.SC_NOT_FOUND, "No car type " + carTypeName + " at " + company);
+			return;
+		}
+		int limit = limit(req);
+		// the cursor is the id of the last car of the previous page
+		long after = decodeCursor(req);
+
+		List<Integer> ids = new ArrayList<Integer>();
+		for (int id : model.getCarIdsByCarType(company, carType)) {
+			if (id > after) {
+				ids.add(id);
+			}
+		}
+		ids.sort(null);
+
+		JsonWriter json = startJson(resp);
+		json.beginObject().name("items").beginArray();
+		for (int id : ids.subList(0, Math.min(limit, ids.size()))) {
+			json.beginObject().name("id").value(id).endObject();
+		}
+		json.endArray();
+		json.name("next").value(ids.size() > limit ? encodeCursor(ids.get(limit - 1)) : null);
+		json.endObject().flush();
+	}
+
+	/****************
+	 * ALTERNATIVES *
+	 ****************/
+
+	private void getAlternatives(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+		String company = requiredCompany(req, resp);
+		if (company == null) {
+			return;
+		}
+		ReservationConstraints constraints = new ReservationConstraints(
+				date(req, "start"), date(req, "end"), required(req, "carType"));
+		String k = req.getParameter("k");
+		int limit = k == null ? DEFAULT_ALTERNATIVES : Integer.parseInt(k);
+		if (limit < 1 || limit > MAX_LIMIT) {
+			throw new IllegalArgumentException("k must be between 1 and " + MAX_LIMIT);
+		}
+		ReservationAlternatives alternatives = CarRentalModel.get().getAlternatives(company, constraints, limit);
+
+		JsonWriter json = startJson(resp);
+		json.beginObject().name("periods").beginArray();
+		for (ReservationConstraints period : alternatives.getPeriods()) {
+			json.beginObject();
+			json.name("startDate").value(period.getStartDate().toInstant().toString());
+			json.name("endDate").value(period.getEndDate().toInstant().toString());
+			json.endObject();
+		}
+		json.endArray().name("carTypes").beginArray();
+		for (CarType t : alternatives.getCarTypes()) {
+			json.value(t.getName());
+		}
+		json.endArray().endObject().flush();
+	}
+
+	/**************
+	 * PARAMETERS *
+	 **************/
+
+	private static String required(HttpServletRequest req, String name) {
+		String value = req.getParameter(name);
+		if (value == null || value.isEmpty()) {
+			throw new IllegalArgumentException("Missing parameter " + name);
+		}
+		return value;
+	}
+
+	private static Date date(HttpServletRequest req, String name) {
+		try {
+			return Date.from(Instant.parse(required(req, name)));
+		} catch (DateTimeParseException e) {
+			throw new IllegalArgumentException("Illegal date " + name);
+		}
+	}
+
+	// answers 404 and returns null if the company does not exist
+	private static String requiredCompany(HttpServletRequest req, HttpServletResponse resp) throws IOException {
+		String company = required(req, "company");
+		if (!CarRentalModel.get().getAllRentalCompanyNames().contains(company)) {
+			resp.sendError(HttpServletResponse.SC_NOT_FOUND, "No car rental company " + company);
+			return null;
+		}
+		return company;
+	}
+
+	private static int limit(HttpServletRequest req) {
+		String limit = req.getParameter("limit");
+		if (limit == null) {
+			return DEFAULT_LIMIT;
+		}
+		int value = Integer.parseInt(limit);
+		if (value < 1 || value > MAX_LIMIT) {
+			throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+		}
+		return value;
+	}
+
+	private static String encodeCursor(long position) {
+		return Base64.getUrlEncoder().withoutPadding()
+				.encodeToString(Long.toString(position).getBytes(StandardCharsets.US_ASCII));
+	}
+
+	private static long decodeCursor(HttpServletRequest req) {
+		String cursor = req.getParameter("cursor");
+		if (cursor == null || cursor.isEmpty()) {
+			return 0;
+		}
+		try {
+			long position = Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+			if (position < 0) {
+				throw new IllegalArgumentException("Illegal cursor");
+			}
+			return position;
+		} catch (IllegalArgumentException e) {
+			// also covers malformed base64 and numbers
+			throw new IllegalArgumentException("Illegal cursor");
+		}
+	}
+
+	private static String encodeReservationCursor(Reservation last) {
+		String key = last.getStartDate().getTime() + ":" + last.getCarId() + ":" + last.getRentalCompany();
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static ReservationKey decodeReservationCursor(HttpServletRequest req) {
+		String cursor = req.getParameter("cursor");
+		if (cursor == null || cursor.isEmpty()) {
+			return null;
+		}
+		try {
+			// the company goes last, as its name may contain the separator
+			String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split(":", 3);
+			if (parts.length != 3) {
+				throw new IllegalArgumentException("Illegal cursor");
+			}
+			return new ReservationKey(Long.parseLong(parts[0]), parts[2], Integer.parseInt(parts[1]));
+		} catch (IllegalArgumentException e) {
+			// also covers malformed base64 and numbers
+			throw new IllegalArgumentException("Illegal cursor");
+		}
+	}
+
+	private static JsonWriter startJson(HttpServletResponse resp) throws IOException {
+		resp.setContentType("application/json");
+		resp.setCharacterEncoding("UTF-8");
+		return new JsonWriter(resp.getWriter());
+	}
+
+	/**
+	 * The fields requested with the fields parameter, or all fields if it is
+	 * absent.
+	 */
+	private static class Fields {
+
+		private final Set<String> names;
+
+		Fields(HttpServletRequest req) {
+			String fields = req.getParameter("fields");
+			this.names = fields == null ? null : new HashSet<String>(Arrays.asList(fields.split(",")));
+		}
+
+		boolean includes(String field) {
+			return names == null || names.contains(field);
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package ds.gae.view;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Builds weak entity tags from version counters and answers conditional GET
+ * requests.
+ */
+public final class ETags {
+
+	// versions start from zero again when this instance restarts or in another
+	// instance, so the tags of each instance must differ
+	private static final String INSTANCE = Long.toString(System.currentTimeMillis(), 36);
+
+	private ETags() {
+	}
+
+	/**
+	 * Build an entity tag from the given versions.
+	 *
+	 * @param versions version counters of everything a response depends on
+	 * @return the entity tag
+	 */
+	public static String of(long... versions) {
+		return of(null, versions);
+	}
+
+	/**
+	 * Build an entity tag from the given versions of data that belongs to the
+	 * given owner, e.g. a renter. Owners are told apart by a SHA-256 digest of
+	 * their name, so a tag of one owner never matches the page of another.
+	 *
+	 * @param owner    name of the owner, or null if there is none
+	 * @param versions version counters of everything a response depends on
+	 * @return the entity tag
+	 */
+	public static String of(String owner, long... versions) {
+		StringBuilder tag = new StringBuilder("W/\"").append(INSTANCE);
+		if (owner != null) {
+			tag.append('-').append(digest(owner));
+		}
+		for (long version : versions) {
+			tag.append('-').append(Long.toString(version, 36));
+		}
+		return tag.append('"').toString();
+	}
+
+	private static String digest(String owner) {
+		try {
+			byte[] hash = MessageDigest.getInstance("SHA-256").digest(owner.getBytes(StandardCharsets.UTF_8));
+			return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+		} catch (NoSuchAlgorithmException e) {
+			// every Java platform supports SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Set the entity tag of the response and, if the client already has the
+	 * current version, answer with 304 Not Modified.
+	 *
+	 * @param req  the request
+	 * @param resp the response
+	 * @param etag the entity tag of the current version
+	 * @return True if the response was completed with 304 Not Modified.
+	 */
+	public static boolean notModified(HttpServletRequest req, HttpServletResponse resp, String etag) {
+		resp.setHeader("ETag", etag);
+		// the content depends on the session, so shared caches may not keep it
+		resp.setHeader("Cache-Control", "private, no-cache");
+		String ifNoneMatch = req.getHeader("If-None-Match");
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (String candidate : ifNoneMatch.split(",")) {
+			String tag = candidate.trim();
+			if (tag.equals("*") || tag.equals(etag)) {
+				resp.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+				return true;
+			}
+		}
+		return false;
+	}
+}
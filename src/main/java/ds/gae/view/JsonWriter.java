@@ -0,0 +1,155 @@
+package ds.gae.view;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.BitSet;
+
+/**
+ * Writes JSON straight to a character stream, without building the document in
+ * memory first. The caller is responsible for nesting objects and arrays
+ * correctly.
+ */
+public class JsonWriter {
+
+	private final Writer out;
+	// per nesting level: has a value been written at that level already?
+	private final BitSet hasValue = new BitSet();
+	private int depth;
+	private boolean afterName;
+
+	/***************
+	 * CONSTRUCTOR *
+	 ***************/
+
+	public JsonWriter(Writer out) {
+		this.out = out;
+	}
+
+	/**********
+	 * OBJECT *
+	 **********/
+
+	public JsonWriter beginObject() throws IOException {
+		return open('{');
+	}
+
+	public JsonWriter endObject() throws IOException {
+		return close('}');
+	}
+
+	public JsonWriter name(String name) throws IOException {
+		separate();
+		string(name);
+		out.write(':');
+		afterName = true;
+		return this;
+	}
+
+	/*********
+	 * ARRAY *
+	 *********/
+
+	public JsonWriter beginArray() throws IOException {
+		return open('[');
+	}
+
+	public JsonWriter endArray() throws IOException {
+		return close(']');
+	}
+
+	/**********
+	 * VALUES *
+	 **********/
+
+	public JsonWriter value(String value) throws IOException {
+		separate();
+		if (value == null) {
+			out.write("null");
+		} else {
+			string(value);
+		}
+		return this;
+	}
+
+	public JsonWriter value(long value) throws IOException {
+		separate();
+		out.write(Long.toString(value));
+		return this;
+	}
+
+	public JsonWriter value(double value) throws IOException {
+		separate();
+		out.write(Double.isFinite(value) ? Double.toString(value) : "null");
+		return this;
+	}
+
+	public JsonWriter value(boolean value) throws IOException {
+		separate();
+		out.write(value ? "true" : "false");
+		return this;
+	}
+
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	/***********
+	 * HELPERS *
+	 ***********/
+
+	private JsonWriter open(char bracket) throws IOException {
+		separate();
+		out.write(bracket);
+		hasValue.clear(++depth);
+		return this;
+	}
+
+	private JsonWriter close(char bracket) throws IOException {
+		depth--;
+		out.write(bracket);
+		return this;
+	}
+
+	// a value directly after a name needs no comma
+	private void separate() throws IOException {
+		if (afterName) {
+			afterName = false;
+			return;
+		}
+		if (hasValue.get(depth)) {
+			out.write(',');
+		}
+		hasValue.set(depth);
+	}
+
+	private void string(String value) throws IOException {
+		out.write('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"':
+				out.write("\\\"");
+				break;
+			case '\\':
+				out.write("\\\\");
+				break;
+			case '\n':
+				out.write("\\n");
+				break;
+			case '\r':
+				out.write("\\r");
+				break;
+			case '\t':
+				out.write("\\t");
+				break;
+			default:
+				if (c < 0x20 || c == 0x2028 || c == 0x2029) {
+					out.write(String.format("\\u%04x", (int) c));
+				} else {
+					out.write(c);
+				}
+			}
+		}
+		out.write('"');
+	}
+}
@@ -22,6 +22,7 @@
 	<% Map<String, Integer> cars = new HashMap<String, Integer>(); %>
 	
 	<% Collection<String> carRentalCompanies = CarRentalModel.get().getAllRentalCompanyNames(); %>
+	<% CarRentalModel.get().loadCompanies(carRentalCompanies); %>
 	
 	<% for (String crc : carRentalCompanies) { %>
 		<% Collection<CarType> types = CarRentalModel.get().getCarTypesOfCarRentalCompany(crc); %>